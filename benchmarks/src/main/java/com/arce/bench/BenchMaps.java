@@ -0,0 +1,155 @@
+package com.arce.bench;
+
+import com.arce.math.Vector2D;
+import com.arce.world.GameMap;
+import com.arce.world.MapLoader;
+import com.arce.world.Sector;
+import com.arce.world.Wall;
+
+import java.io.File;
+
+/**
+ * Карты для бенчмарков: файлы из maps/ (запуск из корня репозитория) и сгенерированные сетки комнат.
+ * Имя вида {@code grid:N} - сетка N x N комнат, соседние комнаты соединены проемами-порталами.
+ */
+final class BenchMaps {
+    static final double ROOM_SIZE = 256;
+    private static final double DOOR_SIZE = 64;
+    private static final double PILLAR_SIZE = 24;
+    
+    private BenchMaps() {
+    }
+    
+    static GameMap load(String name) {
+        if (name.startsWith("grid:")) {
+            return generateGrid(Integer.parseInt(name.substring(5)));
+        }
+        
+        String mapsDirectory = System.getProperty("arce.maps", "maps");
+        GameMap gameMap = new MapLoader().loadMap(new File(mapsDirectory, name).getPath());
+        if (gameMap == null) {
+            throw new IllegalStateException("Cannot load map " + name + " from " + mapsDirectory
+                                            + " - run from the repository root or set -Darce.maps");
+        }
+        return gameMap;
+    }
+    
+    static GameMap generateGrid(int roomsPerSide) {
+        GameMap map = new GameMap();
+        Sector[][] rooms = new Sector[roomsPerSide][roomsPerSide];
+        
+        for (int row = 0; row < roomsPerSide; row++) {
+            for (int column = 0; column < roomsPerSide; column++) {
+                Sector room = new Sector(row * roomsPerSide + column + 1);
+                room.setFloorHeight(((row + column) % 3) * 8);
+                room.setCeilingHeight(room.getFloorHeight() + 96 + (row * 7 + column * 3) % 4 * 16);
+                room.setLightLevel(160 + (row * 31 + column * 17) % 96);
+                rooms[row][column] = room;
+                map.addSector(room);
+            }
+        }
+        
+        for (int row = 0; row < roomsPerSide; row++) {
+            for (int column = 0; column < roomsPerSide; column++) {
+                Sector room = rooms[row][column];
+                double x0 = column * ROOM_SIZE;
+                double y0 = row * ROOM_SIZE;
+                double x1 = x0 + ROOM_SIZE;
+                double y1 = y0 + ROOM_SIZE;
+                int texture = 1 + (row + column) % 8;
+                
+                // Нижняя и левая стороны: внешняя стена или общая с соседом
+                addSide(map, x0, y0, x1, y0, room, row > 0 ? rooms[row - 1][column] : null, texture);
+                addSide(map, x0, y1, x0, y0, room, column > 0 ? rooms[row][column - 1] : null, texture);
+                if (row == roomsPerSide - 1) {
+                    addSide(map, x1, y1, x0, y1, room, null, texture);
+                }
+                if (column == roomsPerSide - 1) {
+                    addSide(map, x1, y0, x1, y1, room, null, texture);
+                }
+                
+                addPillar(map, x0 + ROOM_SIZE * 0.3, y0 + ROOM_SIZE * 0.65);
+            }
+        }
+        
+        map.setPlayerStartPosition(new Vector2D(ROOM_SIZE / 2, ROOM_SIZE / 2));
+        map.setPlayerStartAngle(Math.PI / 4);
+        map.buildBSP();
+        return map;
+    }
+    
+    private static void addSide(GameMap map, double ax, double ay, double bx, double by,
+                                Sector room, Sector neighbour, int texture) {
+        if (neighbour == null) {
+            Wall wall = new Wall(new Vector2D(ax, ay), new Vector2D(bx, by));
+            wall.setTextureId(texture);
+            room.addWall(wall);
+            map.addWall(wall);
+            return;
+        }
+        
+        // Общая сторона: стена - проем - стена, все три куска принадлежат обеим комнатам
+        double t0 = (ROOM_SIZE - DOOR_SIZE) / 2 / ROOM_SIZE;
+        double t1 = 1.0 - t0;
+        Vector2D a = new Vector2D(ax, ay);
+        Vector2D doorStart = new Vector2D(ax + (bx - ax) * t0, ay + (by - ay) * t0);
+        Vector2D doorEnd = new Vector2D(ax + (bx - ax) * t1, ay + (by - ay) * t1);
+        Vector2D b = new Vector2D(bx, by);
+        
+        Wall portal = new Wall(doorStart, doorEnd);
+        portal.setSolid(false);
+        portal.setFrontSector(room);
+        portal.setBackSector(neighbour);
+        
+        for (Wall wall : new Wall[] { new Wall(a, doorStart), portal, new Wall(doorEnd, b) }) {
+            wall.setTextureId(texture);
+            room.addWall(wall);
+            neighbour.addWall(wall);
+            map.addWall(wall);
+        }
+    }
+    
+    private static void addPillar(GameMap map, double x, double y) {
+        Vector2D[] corners = {
+            new Vector2D(x, y),
+            new Vector2D(x + PILLAR_SIZE, y),
+            new Vector2D(x + PILLAR_SIZE, y + PILLAR_SIZE),
+            new Vector2D(x, y + PILLAR_SIZE)
+        };
+        for (int i = 0; i < corners.length; i++) {
+            Wall wall = new Wall(corners[i], corners[(i + 1) % corners.length]);
+            wall.setTextureId(5);
+            map.addWall(wall);
+        }
+    }
+    
+    /**
+     * Случайные точки внутри секторов карты - начала лучей и запросы findSector.
+     * Возвращает массив x0, y0, x1, y1, ...
+     */
+    static double[] randomInteriorPoints(GameMap gameMap, int count, long seed) {
+        double[] bounds = gameMap.getWallBounds();
+        double minX = bounds[0], minY = bounds[1];
+        double maxX = bounds[2], maxY = bounds[3];
+        
+        java.util.Random random = new java.util.Random(seed);
+        double[] points = new double[count * 2];
+        int found = 0;
+        for (int attempt = 0; found < count && attempt < count * 1000; attempt++) {
+            double x = minX + random.nextDouble() * (maxX - minX);
+            double y = minY + random.nextDouble() * (maxY - minY);
+            if (gameMap.findSector(x, y) != null) {
+                points[found * 2] = x;
+                points[found * 2 + 1] = y;
+                found++;
+            }
+        }
+        
+        // Карта без секторов - просто точки в ее рамке
+        for (; found < count; found++) {
+            points[found * 2] = minX + random.nextDouble() * (maxX - minX);
+            points[found * 2 + 1] = minY + random.nextDouble() * (maxY - minY);
+        }
+        return points;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.arce.bench;
+
+import com.arce.world.BSPNode;
+import com.arce.world.FlatBSP;
+import com.arce.world.GameMap;
+import com.arce.world.RayHit;
+import com.arce.world.Wall;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение BSP и трассировка лучей: рекурсивное дерево (BSPNode) и плоское (FlatBSP, его использует RayCaster).
+ * Время raycast* - на один луч.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class BspBenchmark {
+    private static final int RAYS = 1024;
+    private static final double MAX_DISTANCE = 4096;
+    
+    @Param({"aww.json", "demo_map.json", "hello.json", "new.json", "new_test.json", "test_map.json", "grid:8", "grid:24"})
+    public String map;
+    
+    private List<Wall> walls;
+    private BSPNode tree;
+    private FlatBSP flat;
+    private final double[] rays = new double[RAYS * 4];
+    private final RayHit hit = new RayHit();
+    
+    @Setup
+    public void setup() {
+        GameMap gameMap = BenchMaps.load(map);
+        walls = new ArrayList<>(gameMap.getWalls());
+        tree = gameMap.getBspRoot();
+        flat = gameMap.getFlatBsp();
+        
+        double[] origins = BenchMaps.randomInteriorPoints(gameMap, RAYS, 42);
+        Random random = new Random(43);
+        for (int i = 0; i < RAYS; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            rays[i * 4] = origins[i * 2];
+            rays[i * 4 + 1] = origins[i * 2 + 1];
+            rays[i * 4 + 2] = Math.cos(angle);
+            rays[i * 4 + 3] = Math.sin(angle);
+        }
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public FlatBSP build() {
+        return FlatBSP.compile(BSPNode.buildBSP(walls, 8));
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public int raycastTree() {
+        int hits = 0;
+        for (int i = 0; i < RAYS * 4; i += 4) {
+            if (tree.raycast(rays[i], rays[i + 1], rays[i + 2], rays[i + 3], MAX_DISTANCE, hit)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public int raycastFlat() {
+        int hits = 0;
+        for (int i = 0; i < RAYS * 4; i += 4) {
+            if (flat.raycast(rays[i], rays[i + 1], rays[i + 2], rays[i + 3], MAX_DISTANCE, hit)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.arce.bench;
+
+import com.arce.world.GameMap;
+import com.arce.world.Sector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameMap.findSector: случайные точки без подсказки и движение мелкими шагами с подсказкой
+ * (так ищет сектор игрок каждый тик). Время - на один запрос.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class FindSectorBenchmark {
+    private static final int QUERIES = 4096;
+    private static final int STEPS_PER_SEGMENT = 32;
+    
+    @Param({"test_map.json", "hello.json", "grid:8", "grid:24"})
+    public String map;
+    
+    private GameMap gameMap;
+    private double[] randomPoints;
+    private final double[] walkPoints = new double[QUERIES * 2];
+    
+    @Setup
+    public void setup() {
+        gameMap = BenchMaps.load(map);
+        randomPoints = BenchMaps.randomInteriorPoints(gameMap, QUERIES, 5);
+        
+        // Путь по прямым между случайными точками, шаг - доли сегмента
+        for (int i = 0; i < QUERIES; i++) {
+            int segment = i / STEPS_PER_SEGMENT;
+            int a = segment * 2;
+            int b = ((segment + 1) % (QUERIES / STEPS_PER_SEGMENT)) * 2;
+            double t = (double) (i % STEPS_PER_SEGMENT) / STEPS_PER_SEGMENT;
+            walkPoints[i * 2] = randomPoints[a] + (randomPoints[b] - randomPoints[a]) * t;
+            walkPoints[i * 2 + 1] = randomPoints[a + 1] + (randomPoints[b + 1] - randomPoints[a + 1]) * t;
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int randomPoints() {
+        int found = 0;
+        for (int i = 0; i < QUERIES * 2; i += 2) {
+            if (gameMap.findSector(randomPoints[i], randomPoints[i + 1]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public Sector walkWithHint() {
+        Sector sector = null;
+        for (int i = 0; i < QUERIES * 2; i += 2) {
+            sector = gameMap.findSector(walkPoints[i], walkPoints[i + 1], sector);
+        }
+        return sector;
+    }
+}
\ No newline at end of file
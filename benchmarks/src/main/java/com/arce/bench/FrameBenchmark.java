@@ -0,0 +1,146 @@
+package com.arce.bench;
+
+import com.arce.core.Engine;
+import com.arce.core.managers.SpriteManager;
+import com.arce.math.Vector2D;
+import com.arce.render.Camera;
+import com.arce.render.ColumnBuffer;
+import com.arce.render.RayCaster;
+import com.arce.render.Renderer;
+import com.arce.world.GameMap;
+import com.arce.world.Sector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный кадр: RayCaster.castRays и castRays + Renderer.renderFrame на разных разрешениях.
+ * Камера по кругу обходит несколько точек карты, чтобы не мерить один и тот же ракурс.
+ * Трассировка лучей меряется на нескольких числах потоков; обход сегментов однопоточный,
+ * поэтому у его состояния параметра threads нет и одинаковые замеры не повторяются.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dlogback.configurationFile=logback-bench.xml"})
+public class FrameBenchmark {
+    private static final int VIEWS = 16;
+    private static final double EYE_HEIGHT = 41.0;
+    
+    @State(Scope.Benchmark)
+    public abstract static class FrameState {
+        @Param({"test_map.json", "grid:8"})
+        public String map;
+        
+        @Param({"320x240", "640x480", "1280x720"})
+        public String resolution;
+        
+        RayCaster rayCaster;
+        Renderer renderer;
+        private Camera[] cameras;
+        private int next;
+        
+        abstract void configure(RayCaster rayCaster);
+        
+        @Setup
+        public void setup() {
+            String[] size = resolution.split("x");
+            int width = Integer.parseInt(size[0]);
+            int height = Integer.parseInt(size[1]);
+            
+            GameMap gameMap = BenchMaps.load(map);
+            rayCaster = new RayCaster(gameMap);
+            configure(rayCaster);
+            
+            renderer = new Renderer(width, height);
+            renderer.setAssetManager(Engine.createAssetManager());
+            renderer.setShowDebugInfo(false);
+            
+            double[] points = BenchMaps.randomInteriorPoints(gameMap, VIEWS, 7);
+            cameras = new Camera[VIEWS];
+            for (int i = 0; i < VIEWS; i++) {
+                Camera camera = new Camera(new Vector2D(points[i * 2], points[i * 2 + 1]), i * 2 * Math.PI / VIEWS,
+                                           width, height);
+                Sector sector = gameMap.findSector(camera.getX(), camera.getY());
+                if (sector != null) {
+                    camera.setHeight(sector.getFloorHeight() + EYE_HEIGHT);
+                }
+                cameras[i] = camera;
+            }
+        }
+        
+        @TearDown
+        public void tearDown() {
+            rayCaster.shutdown();
+        }
+        
+        Camera nextCamera() {
+            Camera camera = cameras[next];
+            next = (next + 1) % VIEWS;
+            return camera;
+        }
+        
+        ColumnBuffer cast() {
+            return rayCaster.castRays(nextCamera());
+        }
+        
+        BufferedImage castAndRender() {
+            Camera camera = nextCamera();
+            return renderer.renderFrame(rayCaster.castRays(camera), camera, (SpriteManager) null);
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class RaycastFrame extends FrameState {
+        // Потоки трассировки, как performance.raycast_threads: 0 - по числу процессоров
+        @Param({"1", "2", "4", "0"})
+        public int threads;
+        
+        @Override
+        void configure(RayCaster rayCaster) {
+            rayCaster.setCastMode(RayCaster.CastMode.RAYCAST);
+            rayCaster.setThreadCount(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class SegmentFrame extends FrameState {
+        @Override
+        void configure(RayCaster rayCaster) {
+            rayCaster.setCastMode(RayCaster.CastMode.SEGMENTS);
+        }
+    }
+    
+    @Benchmark
+    public ColumnBuffer castRays(RaycastFrame frame) {
+        return frame.cast();
+    }
+    
+    @Benchmark
+    public BufferedImage castAndRender(RaycastFrame frame) {
+        return frame.castAndRender();
+    }
+    
+    @Benchmark
+    public ColumnBuffer castSegments(SegmentFrame frame) {
+        return frame.cast();
+    }
+    
+    @Benchmark
+    public BufferedImage castSegmentsAndRender(SegmentFrame frame) {
+        return frame.castAndRender();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.arce.bench;
+
+import com.arce.assets.Texture;
+import com.arce.core.Engine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выборка текселей: getPixelRGB по (u, v) с заворачиванием и sample по целым координатам. Время - на один тексель.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dlogback.configurationFile=logback-bench.xml"})
+public class TextureBenchmark {
+    private static final int SAMPLES = 4096;
+    
+    @Param({"brick", "wall_1"})
+    public String texture;
+    
+    private Texture tex;
+    private final double[] u = new double[SAMPLES];
+    private final double[] v = new double[SAMPLES];
+    private final int[] x = new int[SAMPLES];
+    private final int[] y = new int[SAMPLES];
+    
+    @Setup
+    public void setup() {
+        tex = Engine.createAssetManager().getTexture(texture);
+        
+        Random random = new Random(11);
+        for (int i = 0; i < SAMPLES; i++) {
+            u[i] = random.nextDouble() * 4 - 2;
+            v[i] = random.nextDouble() * 4 - 2;
+            x[i] = random.nextInt(tex.getWidth());
+            y[i] = random.nextInt(tex.getHeight());
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int getPixelRGB() {
+        int sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += tex.getPixelRGB(u[i], v[i]);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int sample() {
+        int sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += tex.sample(x[i], y[i]);
+        }
+        return sum;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.arce.render;
+
+import com.arce.assets.Texture;
+import com.arce.core.Engine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цикл колонки текстурированной стены без трассировки и остального кадра: Renderer.drawWallSpan
+ * (строка текстуры в фиксированной точке, затенение таблицей) против прежнего цикла с V в double
+ * и умножением каналов. Время - на одну колонку. Лежит в пакете render ради доступа к drawWallSpan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dlogback.configurationFile=logback-bench.xml"})
+public class WallSpanBenchmark {
+    private static final int SCREEN_WIDTH = 640;
+    private static final int SCREEN_HEIGHT = 480;
+    private static final double WORLD_WALL_HEIGHT = 64.0;
+    private static final double SHADING = 0.7;
+    
+    // Высота стены на экране; больше высоты экрана - стена обрезана сверху и снизу
+    @Param({"64", "480", "1920"})
+    public int wallHeight;
+    
+    private final int[] pixels = new int[SCREEN_WIDTH * SCREEN_HEIGHT];
+    private int[] columnTexels;
+    private int[] columnOffsets;
+    private int textureHeight;
+    private int wallTop;
+    private int wallBottom;
+    private int shadeLevel;
+    
+    @Setup
+    public void setup() {
+        Texture texture = Engine.createAssetManager().getTexture("brick");
+        columnTexels = texture.getColumnTexels();
+        textureHeight = texture.getHeight();
+        
+        columnOffsets = new int[SCREEN_WIDTH];
+        for (int x = 0; x < SCREEN_WIDTH; x++) {
+            columnOffsets[x] = texture.getColumnOffset(x % texture.getWidth());
+        }
+        
+        wallTop = (SCREEN_HEIGHT - wallHeight) / 2;
+        wallBottom = wallTop + wallHeight - 1;
+        shadeLevel = ShadeTable.levelOffset(SHADING);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(SCREEN_WIDTH)
+    public int[] fixedPoint() {
+        for (int x = 0; x < SCREEN_WIDTH; x++) {
+            Renderer.drawWallSpan(pixels, SCREEN_WIDTH, SCREEN_HEIGHT, x, columnTexels, columnOffsets[x],
+                                  textureHeight, wallTop, wallBottom, WORLD_WALL_HEIGHT, shadeLevel);
+        }
+        return pixels;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(SCREEN_WIDTH)
+    public int[] doubles() {
+        for (int x = 0; x < SCREEN_WIDTH; x++) {
+            drawWallSpanDoubles(x, columnOffsets[x]);
+        }
+        return pixels;
+    }
+    
+    // Цикл до перехода на фиксированную точку: V и затенение каждого пикселя в double
+    private void drawWallSpanDoubles(int x, int columnOffset) {
+        int spanHeight = wallBottom - wallTop;
+        double vStep = WORLD_WALL_HEIGHT / (spanHeight * textureHeight);
+        double vStart = 0.0;
+        if (wallTop < 0) {
+            vStart += vStep * textureHeight * (-wallTop);
+        }
+        
+        for (int y = wallTop; y <= wallBottom; y++) {
+            if (y >= 0 && y < SCREEN_HEIGHT) {
+                double v = vStart + (y - Math.max(0, wallTop)) * vStep;
+                v = Math.max(0.0, Math.min(0.9999, v));
+                
+                int pixelRgb = columnTexels[columnOffset + (int) (v * textureHeight)];
+                
+                int r = (int) (((pixelRgb >> 16) & 0xFF) * SHADING);
+                int g = (int) (((pixelRgb >> 8) & 0xFF) * SHADING);
+                int b = (int) ((pixelRgb & 0xFF) * SHADING);
+                
+                r = Math.max(0, Math.min(255, r));
+                g = Math.max(0, Math.min(255, g));
+                b = Math.max(0, Math.min(255, b));
+                
+                pixels[y * SCREEN_WIDTH + x] = (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+}
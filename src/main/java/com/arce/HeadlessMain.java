@@ -0,0 +1,147 @@
+package com.arce;
+
+import com.arce.core.Engine;
+import com.arce.core.EngineConfig;
+import com.arce.core.headless.CameraPath;
+import com.arce.core.headless.FrameSink;
+import com.arce.core.headless.GoldenFrameSink;
+import com.arce.core.headless.HeadlessRenderer;
+import com.arce.core.headless.PngFrameSink;
+import com.arce.core.headless.RawFrameSink;
+import com.arce.core.managers.AssetManager;
+import com.arce.core.managers.MapManager;
+import com.arce.core.managers.SpriteManager;
+import com.arce.logger.EngineLogger;
+import com.arce.world.GameMap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Path;
+
+/**
+ * Рендер карты без окна - для CI (сверка с эталонными кадрами) и пакетных превью карт.
+ *
+ * Пример: {@code java -cp arce-game.jar com.arce.HeadlessMain --map test_map.json --frames 60 --out previews}
+ */
+public class HeadlessMain {
+    private static final String USAGE = String.join("\n",
+        "Usage: HeadlessMain [options]",
+        "  --map <file|test|complex>   map from maps/ or a built-in test map (default: test)",
+        "  --size <WxH>                frame size (default: render size from engine.properties)",
+        "  --frames <n>                number of frames (default: 60)",
+        "  --path <file>               camera path, 'x y angleDegrees' per line (default: turn around at player start)",
+        "  --sprites                   add the engine test sprites",
+        "  --out <dir>                 write PNG frames",
+        "  --raw <file>                write frames as a raw rgb24 stream",
+        "  --compare <dir>             compare against PNG frames written earlier with --out, exit 1 on mismatch");
+    
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        System.exit(run(args));
+    }
+    
+    static int run(String[] args) {
+        EngineLogger logger = new EngineLogger(HeadlessMain.class);
+        
+        String mapName = "test";
+        String size = null;
+        int frames = 60;
+        String pathFile = null;
+        boolean sprites = false;
+        String outDir = null;
+        String rawFile = null;
+        String compareDir = null;
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--map" -> mapName = args[++i];
+                    case "--size" -> size = args[++i];
+                    case "--frames" -> frames = Integer.parseInt(args[++i]);
+                    case "--path" -> pathFile = args[++i];
+                    case "--sprites" -> sprites = true;
+                    case "--out" -> outDir = args[++i];
+                    case "--raw" -> rawFile = args[++i];
+                    case "--compare" -> compareDir = args[++i];
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            System.err.println("Missing value for " + args[args.length - 1]);
+            System.err.println(USAGE);
+            return 2;
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        
+        int outputs = (outDir != null ? 1 : 0) + (rawFile != null ? 1 : 0) + (compareDir != null ? 1 : 0);
+        if (outputs != 1 || frames < 1) {
+            System.err.println(USAGE);
+            return 2;
+        }
+        
+        EngineConfig config = new EngineConfig();
+        int width = config.getRenderWidth();
+        int height = config.getRenderHeight();
+        if (size != null) {
+            String[] parts = size.toLowerCase().split("x");
+            try {
+                width = Integer.parseInt(parts[0]);
+                height = Integer.parseInt(parts[1]);
+            } catch (RuntimeException e) {
+                System.err.println("Bad --size " + size + ", expected WxH");
+                return 2;
+            }
+        }
+        
+        MapManager mapManager = new MapManager();
+        boolean loaded = switch (mapName) {
+            case "test" -> mapManager.loadTestMap();
+            case "complex" -> mapManager.loadComplexTestMap();
+            default -> mapManager.loadMap(mapName);
+        };
+        GameMap gameMap = mapManager.getCurrentMap();
+        if (!loaded || gameMap == null) {
+            logger.logError("Failed to load map " + mapName, new RuntimeException("No map loaded"));
+            return 1;
+        }
+        
+        String prefix = mapName.endsWith(".json") ? mapName.substring(0, mapName.length() - 5) : mapName;
+        
+        try {
+            CameraPath path = pathFile != null ? CameraPath.load(Path.of(pathFile)) :
+                CameraPath.turnAround(gameMap.getPlayerStartPosition().x, gameMap.getPlayerStartPosition().y,
+                                      gameMap.getPlayerStartAngle());
+            
+            AssetManager assetManager = Engine.createAssetManager();
+            SpriteManager spriteManager = new SpriteManager(gameMap);
+            spriteManager.setTextureResolver(assetManager::getTextureHandle);
+            if (sprites) {
+                Engine.createTestSprites(spriteManager);
+            }
+            
+            HeadlessRenderer renderer = new HeadlessRenderer(config, assetManager, width, height);
+            GoldenFrameSink golden = compareDir != null ? new GoldenFrameSink(new File(compareDir), prefix) : null;
+            
+            try (FrameSink sink = golden != null ? golden :
+                                  outDir != null ? new PngFrameSink(new File(outDir), prefix) :
+                                  new RawFrameSink(new FileOutputStream(rawFile))) {
+                renderer.render(gameMap, spriteManager, path, frames, sink);
+            }
+            
+            if (golden != null && golden.getMismatchedFrames() > 0) {
+                logger.logInfo("{} of {} frames differ from {}", golden.getMismatchedFrames(), frames, compareDir);
+                return 1;
+            }
+            return 0;
+        
+        } catch (Exception e) {
+            logger.logError("Headless render failed", e);
+            return 1;
+        }
+    }
+}
\ No newline at end of file
@@ -12,11 +12,21 @@ public class Texture {
     private int width;
     private int height;
     
+    // Тексели, распакованные при загрузке: построчно и по столбцам (для вертикальных полос стен).
+    // Оба блока лежат на странице атласа; пока текстура не в атласе, страница у нее своя.
+    // Место меняется только целиком и только до публикации текстуры (перенос в атлас, освобождение
+    // после последнего кадра), поэтому поток рендера не увидит новую страницу со старым смещением
+    private volatile Placement placement;
+    
+    // Для размеров-степеней двойки выборка идет масками и сдвигами без деления
+    private boolean powerOfTwo;
+    private int widthMask;
+    private int heightMask;
+    private int widthShift;
+    private int heightShift;
+    
     public Texture(String name, String filepath) throws IOException {
-        this.name = name;
-        this.image = ImageIO.read(new File(filepath));
-        this.width = image.getWidth();
-        this.height = image.getHeight();
+        this(name, ImageIO.read(new File(filepath)));
     }
     
     public Texture(String name, BufferedImage image) {
@@ -24,13 +34,88 @@ public class Texture {
         this.image = image;
         this.width = image.getWidth();
         this.height = image.getHeight();
+        
+        unpackTexels();
+    }
+    
+    private void unpackTexels() {
+        int size = width * height;
+        TextureAtlas.Page page = new TextureAtlas.Page(texelBlockSize(width, height));
+        int rowBase = page.reserve(texelBlockSize(width, height));
+        int columnBase = rowBase + size;
+        placement = new Placement(page, rowBase, columnBase);
+        
+        int[] data = page.getTexels();
+        image.getRGB(0, 0, width, height, data, rowBase, width);
+        for (int y = 0; y < height; y++) {
+            int row = rowBase + y * width;
+            for (int x = 0; x < width; x++) {
+                data[columnBase + x * height + y] = data[row + x];
+            }
+        }
+        
+        powerOfTwo = isPowerOfTwo(width) && isPowerOfTwo(height);
+        widthMask = width - 1;
+        heightMask = height - 1;
+        widthShift = Integer.numberOfTrailingZeros(width);
+        heightShift = Integer.numberOfTrailingZeros(height);
+    }
+    
+    // Место на странице атласа: построчный блок и блок по столбцам
+    static int texelBlockSize(int width, int height) {
+        return width * height * 2;
+    }
+    
+    // null - блок текстуры уже возвращен в атлас
+    TextureAtlas.Page getAtlasPage() {
+        Placement current = placement;
+        return current != null ? current.page() : null;
+    }
+    
+    void moveTo(TextureAtlas.Page target, int base) {
+        Placement current = placement;
+        System.arraycopy(current.page().getTexels(), current.rowBase(), target.getTexels(), base,
+                         texelBlockSize(width, height));
+        placement = new Placement(target, base, base + width * height);
+    }
+    
+    void detach() {
+        placement = null;
+    }
+    
+    private static boolean isPowerOfTwo(int value) {
+        return value > 0 && (value & (value - 1)) == 0;
+    }
+    
+    /**
+     * Тексель по целочисленным координатам с повторением текстуры.
+     */
+    public int sample(int x, int y) {
+        Placement current = placement;
+        int[] texels = current.page().getTexels();
+        if (powerOfTwo) {
+            return texels[current.rowBase() + (((y & heightMask) << widthShift) | (x & widthMask))];
+        }
+        return texels[current.rowBase() + Math.floorMod(y, height) * width + Math.floorMod(x, width)];
+    }
+    
+    /**
+     * Смещение столбца x (с повторением) в массиве getColumnTexels().
+     * Тексель (x, y) столбца лежит по адресу getColumnOffset(x) + y; смещение уже включает место текстуры в атласе.
+     */
+    public int getColumnOffset(int x) {
+        int columnBase = placement.columnBase();
+        if (powerOfTwo) {
+            return columnBase + ((x & widthMask) << heightShift);
+        }
+        return columnBase + Math.floorMod(x, width) * height;
     }
     
     public Color getPixel(int x, int y) {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             return Color.MAGENTA;
         }
-        return new Color(image.getRGB(x, y));
+        return new Color(texelAt(x, y));
     }
     
     public Color getPixelUV(double u, double v) {
@@ -43,7 +128,7 @@ public class Texture {
         x = Math.max(0, Math.min(width - 1, x));
         y = Math.max(0, Math.min(height - 1, y));
         
-        return new Color(image.getRGB(x, y));
+        return new Color(texelAt(x, y));
     }
     
     public int getPixelRGB(double u, double v) {
@@ -56,7 +141,12 @@ public class Texture {
         x = Math.max(0, Math.min(width - 1, x));
         y = Math.max(0, Math.min(height - 1, y));
         
-        return image.getRGB(x, y);
+        return texelAt(x, y);
+    }
+    
+    private int texelAt(int x, int y) {
+        Placement current = placement;
+        return current.page().getTexels()[current.rowBase() + y * width + x];
     }
     
     public static Texture createDefault() {
@@ -116,9 +206,19 @@ public class Texture {
     public String getName() { return name; }
     public int getWidth() { return width; }
     public int getHeight() { return height; }
+    // Массив страницы атласа: тексель (x, y) лежит по адресу getRowBase() + y * width + x
+    public int[] getTexels() { return placement.page().getTexels(); }
+    public int getRowBase() { return placement.rowBase(); }
+    public int[] getColumnTexels() { return placement.page().getTexels(); }
+    public boolean isPowerOfTwo() { return powerOfTwo; }
+    public int getWidthMask() { return widthMask; }
+    public int getHeightMask() { return heightMask; }
+    public int getWidthShift() { return widthShift; }
     
     @Override
     public String toString() {
         return String.format("Texture(%s, %dx%d)", name, width, height);
     }
+    
+    private record Placement(TextureAtlas.Page page, int rowBase, int columnBase) {}
 }
\ No newline at end of file
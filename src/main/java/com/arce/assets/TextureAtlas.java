@@ -0,0 +1,152 @@
+package com.arce.assets;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Атлас текселей: тексели всех текстур лежат в нескольких больших массивах-страницах.
+ * У каждой текстуры на странице два блока подряд - построчный (полы и потолки)
+ * и по столбцам (стены и спрайты); текстура хранит страницу и смещения блоков.
+ * Страница растет удвоением до PAGE_TEXELS, затем открывается следующая.
+ * Блоки выгруженных текстур попадают в список свободных и отдаются новым текстурам
+ * подходящего размера (остаток блока остается свободным). Список упорядочен по странице
+ * и смещению, соседние свободные блоки сливаются, а свободный хвост страницы возвращается ей.
+ *
+ * Добавлять текстуры можно, пока другой поток рендерит: массив страницы публикуется
+ * через volatile, а чужие блоки при добавлении не меняются.
+ */
+public final class TextureAtlas {
+    public static final int PAGE_TEXELS = 1 << 22;
+    
+    private final List<Page> pages = new ArrayList<>();
+    private final List<Block> freeBlocks = new ArrayList<>();
+    
+    /**
+     * Переносит тексели текстуры в атлас. Данные текстуры после этого читаются со страницы атласа.
+     */
+    public synchronized void add(Texture texture) {
+        Page current = texture.getAtlasPage();
+        if (current == null) {
+            throw new IllegalStateException("Texture already released from the atlas: " + texture.getName());
+        }
+        if (pages.contains(current)) {
+            throw new IllegalStateException("Texture already in the atlas: " + texture.getName());
+        }
+        
+        int size = Texture.texelBlockSize(texture.getWidth(), texture.getHeight());
+        
+        for (int i = 0; i < freeBlocks.size(); i++) {
+            Block block = freeBlocks.get(i);
+            if (block.size >= size) {
+                if (block.size == size) {
+                    freeBlocks.remove(i);
+                } else {
+                    freeBlocks.set(i, new Block(block.page, block.base + size, block.size - size));
+                }
+                texture.moveTo(block.page, block.base);
+                return;
+            }
+        }
+        
+        Page page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        if (page == null || (page.used > 0 && page.used + size > PAGE_TEXELS)) {
+            page = new Page(Math.min(PAGE_TEXELS, Math.max(size, 1 << 16)));
+            pages.add(page);
+        }
+        
+        texture.moveTo(page, page.reserve(size));
+    }
+    
+    /**
+     * Возвращает блок текстуры в атлас. Текстура после этого не связана со страницей
+     * и больше не должна использоваться: ее место получит следующая добавленная текстура.
+     * Повторное освобождение ничего не делает.
+     */
+    public synchronized void release(Texture texture) {
+        Page page = texture.getAtlasPage();
+        int pageIndex = pages.indexOf(page);
+        if (pageIndex < 0) {
+            return;
+        }
+        int base = texture.getRowBase();
+        int size = Texture.texelBlockSize(texture.getWidth(), texture.getHeight());
+        texture.detach();
+        
+        // Место в упорядоченном списке: первый блок, который лежит дальше освобождаемого
+        int index = 0;
+        while (index < freeBlocks.size() && isBefore(freeBlocks.get(index), pageIndex, base)) {
+            index++;
+        }
+        
+        if (index < freeBlocks.size()) {
+            Block next = freeBlocks.get(index);
+            if (next.page == page && next.base == base + size) {
+                size += next.size;
+                freeBlocks.remove(index);
+            }
+        }
+        if (index > 0) {
+            Block previous = freeBlocks.get(index - 1);
+            if (previous.page == page && previous.base + previous.size == base) {
+                base = previous.base;
+                size += previous.size;
+                freeBlocks.remove(--index);
+            }
+        }
+        
+        // Свободный хвост последней страницы отдается обратно ей: туда добавляются новые текстуры
+        if (pageIndex == pages.size() - 1 && base + size == page.used) {
+            page.used = base;
+        } else {
+            freeBlocks.add(index, new Block(page, base, size));
+        }
+    }
+    
+    private boolean isBefore(Block block, int pageIndex, int base) {
+        int blockPage = pages.indexOf(block.page);
+        return blockPage < pageIndex || (blockPage == pageIndex && block.base < base);
+    }
+    
+    public synchronized int getPageCount() { return pages.size(); }
+    
+    // Занятые тексели: выданные страницами за вычетом свободных блоков
+    public synchronized long getUsedTexels() {
+        long used = 0;
+        for (Page page : pages) {
+            used += page.used;
+        }
+        for (Block block : freeBlocks) {
+            used -= block.size;
+        }
+        return used;
+    }
+    
+    private record Block(Page page, int base, int size) {}
+    
+    /**
+     * Страница атласа. Массив может быть заменен большим при добавлении текстур,
+     * поэтому ссылку на него берут у страницы каждый раз, а не запоминают.
+     */
+    public static final class Page {
+        private volatile int[] texels;
+        private int used;
+        
+        Page(int capacity) {
+            this.texels = new int[capacity];
+        }
+        
+        int reserve(int size) {
+            if (used + size > texels.length) {
+                int[] grown = new int[Math.max(used + size, Math.min(PAGE_TEXELS, texels.length * 2))];
+                System.arraycopy(texels, 0, grown, 0, used);
+                texels = grown;
+            }
+            int base = used;
+            used += size;
+            return base;
+        }
+        
+        public int[] getTexels() { return texels; }
+        public int getUsed() { return used; }
+    }
+}
\ No newline at end of file
@@ -8,7 +8,11 @@ package com.arce.core;
 
 import com.arce.logger.EngineLogger;
 import com.arce.world.GameMap;
+import com.arce.world.Sector;
 import com.arce.player.Player;
+import com.arce.render.Camera;
+import com.arce.render.ColumnBuffer;
+import com.arce.render.FrameSnapshot;
 import com.arce.render.RayCaster;
 import com.arce.render.Renderer;
 import com.arce.core.managers.AssetManager;
@@ -18,6 +22,7 @@ import com.arce.core.console.GameConsole;
 import com.arce.entities.Sprite;
 import com.arce.math.Vector2D;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.LockSupport;
 
 public class Engine {
     private final EngineLogger logger;
@@ -34,9 +39,14 @@ public class Engine {
     private SpriteManager spriteManager;
     private MapManager mapManager;
     private GameConsole gameConsole;
+    private FramePipeline pipeline;
+    private ResolutionController resolution;
+    private final FrameSnapshot topDownSnapshot = new FrameSnapshot();
     
-    private long lastUpdateTime;
-    private double deltaTime;
+    // Последние ~100 мкс ожидания кадра добираются активным ожиданием - parkNanos просыпается с опозданием
+    private static final long SPIN_THRESHOLD_NANOS = 100_000;
+    
+    private int ticks;
 
     public Engine() {
         this.logger = new EngineLogger(Engine.class);
@@ -44,7 +54,12 @@ public class Engine {
         
         logger.logInfo("Engine initialized with config:");
         logger.logInfo("  Window: {}x{}", config.getWindowWidth(), config.getWindowHeight());
+        logger.logInfo("  Render: {}x{}, presentation: {}", config.getRenderWidth(), config.getRenderHeight(),
+                       config.getWindowPresentation());
         logger.logInfo("  Target FPS: {}", config.getTargetFPS());
+        logger.logInfo("  Tick rate: {} Hz", config.getTickRate());
+        logger.logInfo("  Pipelined render: {}", config.isPipelinedRender());
+        logger.logInfo("  Dynamic resolution: {}", config.isDynamicResolution());
         logger.logInfo("  Debug mode: {}", config.isDebugMode());
     }
 
@@ -76,7 +91,8 @@ public class Engine {
             window = new Window(
                 config.getWindowWidth(), 
                 config.getWindowHeight(), 
-                config.getWindowTitle()
+                config.getWindowTitle(),
+                config.isActivePresentation()
             );
             
             gameConsole = new GameConsole(mapManager);
@@ -87,12 +103,17 @@ public class Engine {
             spriteManager = null;
             rayCaster = null;
             
-            renderer = new Renderer(config.getWindowWidth(), config.getWindowHeight());
+            renderer = new Renderer(config.getRenderWidth(), config.getRenderHeight());
             renderer.setAssetManager(assetManager);
             
-            window.show();
+            if (config.isPipelinedRender()) {
+                pipeline = new FramePipeline(config, renderer, window);
+                pipeline.start();
+            } else {
+                resolution = createResolutionController(config);
+            }
             
-            lastUpdateTime = System.nanoTime();
+            window.show();
             
             logger.logSuccess("Engine initialization completed");
             logger.logInfo("No map loaded - use console (`) to load a map");
@@ -115,23 +136,35 @@ public class Engine {
             return;
         }
         
+        if (spriteManager != null) {
+            spriteManager.shutdown();
+        }
         spriteManager = new SpriteManager(gameMap);
+        spriteManager.setThreadCount(config.getEffectiveSpriteThreads());
+        spriteManager.setTextureResolver(assetManager::getTextureHandle);
         
         player = new Player(
             gameMap.getPlayerStartPosition(),
             gameMap.getPlayerStartAngle(),
             gameMap,
-            config.getWindowWidth(),
-            config.getWindowHeight()
+            renderer.getScreenWidth(),
+            renderer.getScreenHeight()
         );
         
         player.setMoveSpeed(config.getPlayerMoveSpeed());
         player.setTurnSpeed(config.getPlayerTurnSpeed());
         player.setStrafeSpeed(config.getPlayerStrafeSpeed());
 
-        rayCaster = new RayCaster(gameMap);
-        rayCaster.setMaxRenderDistance(config.getRenderDistance());
-        rayCaster.setSpriteManager(spriteManager);
+        if (rayCaster != null) {
+            rayCaster.shutdown();
+            rayCaster = null;
+        }
+        
+        // В конвейерном режиме свой RayCaster создает поток рендера
+        if (pipeline == null) {
+            rayCaster = createRayCaster(gameMap, config);
+            rayCaster.setSpriteManager(spriteManager);
+        }
         
         createTestSprites();
         
@@ -139,10 +172,49 @@ public class Engine {
         logger.logEnd("initializeGameMap");
     }
     
+    public static RayCaster createRayCaster(GameMap gameMap, EngineConfig config) {
+        RayCaster rayCaster = new RayCaster(gameMap);
+        rayCaster.setMaxRenderDistance(config.getRenderDistance());
+        rayCaster.setThreadCount(config.getEffectiveRaycastThreads());
+        rayCaster.setCastMode("segments".equalsIgnoreCase(config.getRenderMode()) ?
+            RayCaster.CastMode.SEGMENTS : RayCaster.CastMode.RAYCAST);
+        return rayCaster;
+    }
+    
+    static ResolutionController createResolutionController(EngineConfig config) {
+        if (!config.isDynamicResolution()) {
+            return null;
+        }
+        return new ResolutionController(config.getWindowWidth(), config.getWindowHeight(), config.getRenderScale(),
+                                        config.getEffectiveFrameBudgetMs(), config.getMinResolutionScale());
+    }
+    
+    /**
+     * Переводит рендер и камеру на текущий уровень разрешения - общее для обычного и конвейерного режимов.
+     * Новый размер вступает в силу со следующего кадра; окно увеличивает кадр в целое число раз.
+     */
+    static void applyResolution(ResolutionController resolution, Renderer renderer, Camera camera, EngineLogger logger) {
+        int width = resolution.getWidth();
+        int height = resolution.getHeight();
+        renderer.resize(width, height);
+        camera.setScreenSize(width, height);
+        logger.logDebug("Dynamic resolution scale: " + Math.round(resolution.getScale() * 100) + "%");
+    }
+    
     private void initializeManagers() {
         logger.logStart("initializeManagers");
         
-        assetManager = new AssetManager();
+        assetManager = createAssetManager();
+        
+        logger.logSuccess("Asset manager initialized with " + assetManager.getTextureCount() + " textures");
+        logger.logEnd("initializeManagers");
+    }
+    
+    /**
+     * Стандартный набор текстур движка - общий для окна и headless-рендера.
+     */
+    public static AssetManager createAssetManager() {
+        AssetManager assetManager = new AssetManager();
         
         assetManager.loadTexture("wall_1", "wall_1.png");
         
@@ -158,11 +230,10 @@ public class Engine {
             return createCheckerTexture(name, size);
         }, 64);
         
-        logger.logSuccess("Asset manager initialized with " + assetManager.getTextureCount() + " textures");
-        logger.logEnd("initializeManagers");
+        return assetManager;
     }
     
-    private com.arce.assets.Texture createCheckerTexture(String name, int size) {
+    private static com.arce.assets.Texture createCheckerTexture(String name, int size) {
         java.awt.image.BufferedImage image = new java.awt.image.BufferedImage(
             size, size, java.awt.image.BufferedImage.TYPE_INT_RGB);
         java.awt.Graphics2D g = image.createGraphics();
@@ -185,6 +256,13 @@ public class Engine {
         
         logger.logStart("createTestSprites");
         
+        createTestSprites(spriteManager);
+        
+        logger.logSuccess("Created " + spriteManager.getSpriteCount() + " test sprites");
+        logger.logEnd("createTestSprites");
+    }
+    
+    public static void createTestSprites(SpriteManager spriteManager) {
         spriteManager.createSprite("torch1", new Vector2D(120, 80), "red_wall");
         spriteManager.createSprite("torch2", new Vector2D(280, 80), "blue_wall");
         spriteManager.createSprite("pillar", new Vector2D(200, 200), "brick");
@@ -197,60 +275,78 @@ public class Engine {
             sprite.setSpriteHeight(32);
             sprite.setHeight(0);
         }
-        
-        logger.logSuccess("Created " + spriteManager.getSpriteCount() + " test sprites");
-        logger.logEnd("createTestSprites");
     }
     
+    /**
+     * Главный цикл: симуляция идет фиксированными шагами (simulation.tick_rate),
+     * накопленное время догоняется не больше чем simulation.max_steps шагами за кадр.
+     * Кадр рисуется с интерполяцией между двумя последними шагами, а ожидание
+     * до следующего кадра - через parkNanos, без опроса каждую миллисекунду.
+     */
     private void run() {
         logger.logStart("run");
         
-        long lastTime = System.nanoTime();
-        double nsPerTick = 1_000_000_000.0 / config.getTargetFPS();
-        double delta = 0;
+        long tickNanos = 1_000_000_000L / config.getTickRate();
+        double tickSeconds = tickNanos / 1_000_000_000.0;
+        long frameNanos = 1_000_000_000L / config.getTargetFPS();
+        int maxSteps = config.getMaxStepsPerFrame();
+        
+        long previousTime = System.nanoTime();
+        long nextFrameTime = previousTime;
+        long accumulator = 0;
         int frames = 0;
         long timer = System.currentTimeMillis();
         
-        try {
-            while (running) {
-                long now = System.nanoTime();
-                delta += (now - lastTime) / nsPerTick;
-                lastTime = now;
-                
-                deltaTime = (now - lastUpdateTime) / 1_000_000_000.0;
-                lastUpdateTime = now;
-                
-                if (window != null && window.isCloseRequested()) {
-                    logger.logInfo("Window close detected, shutting down engine");
-                    break;
-                }
-                
-                checkForMapChange();
-                
-                if (delta >= 1) {
-                    update();
-                    render();
-                    frames++;
-                    delta--;
+        while (running) {
+            long now = System.nanoTime();
+            accumulator += now - previousTime;
+            previousTime = now;
+            
+            if (window != null && window.isCloseRequested()) {
+                logger.logInfo("Window close detected, shutting down engine");
+                break;
+            }
+            
+            checkForMapChange();
+            
+            int steps = 0;
+            while (accumulator >= tickNanos && steps < maxSteps) {
+                update(tickSeconds);
+                accumulator -= tickNanos;
+                steps++;
+            }
+            
+            // Не успеваем за симуляцией - отбрасываем отставание, а не копим его бесконечно
+            if (accumulator >= tickNanos) {
+                if (config.isDebugMode()) {
+                    logger.logDebug("Simulation behind by " + (accumulator / tickNanos) + " ticks, dropping");
                 }
-                
-                if (config.isShowFPS() && System.currentTimeMillis() - timer >= 1000) {
-                    if (config.isDebugMode()) {
-                        String mapInfo = gameMap != null ? 
-                            "Map: " + mapManager.getCurrentMapName() : "No map";
-                        logger.logDebug("FPS: " + frames + ", Player: " + player + 
-                                       ", " + mapInfo + ", Sprites: " + 
-                                       (spriteManager != null ? spriteManager.getSpriteCount() : 0));
-                    }
-                    frames = 0;
-                    timer += 1000;
+                accumulator %= tickNanos;
+            }
+            
+            render((double) accumulator / tickNanos);
+            frames++;
+            
+            if (config.isShowFPS() && System.currentTimeMillis() - timer >= 1000) {
+                if (config.isDebugMode()) {
+                    String mapInfo = gameMap != null ?
+                        "Map: " + mapManager.getCurrentMapName() : "No map";
+                    logger.logDebug("FPS: " + frames + ", TPS: " + ticks + ", Player: " + player +
+                                   ", " + mapInfo + ", Sprites: " +
+                                   (spriteManager != null ? spriteManager.getSpriteCount() : 0));
                 }
-                
-                Thread.sleep(1);
+                frames = 0;
+                ticks = 0;
+                timer += 1000;
             }
-        } catch (InterruptedException e) {
-            logger.logError("Engine interrupted", e);
-            Thread.currentThread().interrupt();
+            
+            // Кадр опоздал больше чем на период - отсчитываем следующий от текущего момента
+            nextFrameTime += frameNanos;
+            long afterFrame = System.nanoTime();
+            if (afterFrame - nextFrameTime > frameNanos) {
+                nextFrameTime = afterFrame;
+            }
+            waitUntil(nextFrameTime);
         }
         
         shutdown();
@@ -259,6 +355,17 @@ public class Engine {
         logger.logEnd("run");
     }
     
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+    
     private void checkForMapChange() {
         if (mapManager.hasCurrentMap()) {
             GameMap currentManagerMap = mapManager.getCurrentMap();
@@ -270,7 +377,9 @@ public class Engine {
         }
     }
     
-    private void update() {
+    private void update(double deltaTime) {
+        ticks++;
+        
         if (player != null && window != null && gameMap != null) {
             boolean[] keys = window.getKeyStates();
             player.update(keys, deltaTime);
@@ -281,18 +390,30 @@ public class Engine {
         }
     }
     
-    private void render() {
+    private void render(double alpha) {
+        if (pipeline != null) {
+            publishSnapshot(alpha);
+            return;
+        }
+        
         BufferedImage frame;
         
         if (gameMap == null || player == null || renderer == null) {
             frame = renderer.renderNoMapScreen();
         } else {
-            RayCaster.RaycastColumn[] columns = rayCaster.castRays(player.getCamera());
+            Camera camera = player.getRenderCamera(alpha);
             
             if (window != null && window.isShowTopDownMap()) {
-                frame = renderer.renderTopDownView(player.getCamera(), rayCaster, spriteManager);
+                topDownSnapshot.capture(gameMap, camera, player.getCurrentSector(), spriteManager, true);
+                frame = renderer.renderTopDownView(camera, topDownSnapshot);
             } else {
-                frame = renderer.renderFrame(columns, player.getCamera(), spriteManager);
+                long frameStart = System.nanoTime();
+                ColumnBuffer columns = rayCaster.castRays(camera);
+                frame = renderer.renderFrame(columns, camera, spriteManager);
+                
+                if (resolution != null && resolution.record(System.nanoTime() - frameStart)) {
+                    applyResolution(resolution, renderer, player.getCamera(), logger);
+                }
             }
         }
         
@@ -301,11 +422,32 @@ public class Engine {
         }
     }
     
+    // Конвейерный режим: только снимок состояния, рисует поток рендера
+    private void publishSnapshot(double alpha) {
+        FrameSnapshot snapshot = pipeline.beginFrame();
+        
+        if (gameMap == null || player == null) {
+            snapshot.captureEmpty();
+        } else {
+            Camera camera = player.getRenderCamera(alpha);
+            Sector cameraSector = gameMap.findSector(camera.getX(), camera.getY(), player.getCurrentSector());
+            boolean topDown = window != null && window.isShowTopDownMap();
+            snapshot.capture(gameMap, camera, cameraSector, spriteManager, topDown);
+        }
+        
+        pipeline.publishFrame();
+    }
+    
     public void shutdown() {
         if (running) {
             logger.logStart("shutdown");
             running = false;
             
+            // Поток рендера останавливается первым - он читает текстуры и спрайты
+            if (pipeline != null) {
+                pipeline.shutdown();
+            }
+            
             if (window != null) {
                 window.hide();
             }
@@ -316,6 +458,11 @@ public class Engine {
             
             if (spriteManager != null) {
                 spriteManager.clear();
+                spriteManager.shutdown();
+            }
+            
+            if (rayCaster != null) {
+                rayCaster.shutdown();
             }
             
             config.saveConfig();
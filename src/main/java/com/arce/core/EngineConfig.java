@@ -13,10 +13,23 @@ public class EngineConfig {
     private int windowHeight = 600;
     private String windowTitle = "ARCE Engine";
     private boolean windowResizable = false;
+    private String windowPresentation = "swing";
+    private int renderScale = 1;
     
     private int targetFPS = 60;
     private boolean vsyncEnabled = true;
     private int renderDistance = 2000;
+    private boolean parallelRaycast = false;
+    private int raycastThreads = 0;
+    private int spriteThreads = 1;
+    private String renderMode = "raycast";
+    private boolean pipelinedRender = false;
+    private boolean dynamicResolution = false;
+    private double frameBudgetMs = 0;
+    private double minResolutionScale = 0.5;
+    
+    private int tickRate = 60;
+    private int maxStepsPerFrame = 5;
     
     private double playerMoveSpeed = 5.0;
     private double playerTurnSpeed = 3.0;
@@ -61,10 +74,23 @@ public class EngineConfig {
         windowHeight = getIntProperty("window.height", windowHeight);
         windowTitle = getStringProperty("window.title", windowTitle);
         windowResizable = getBooleanProperty("window.resizable", windowResizable);
+        windowPresentation = getStringProperty("window.presentation", windowPresentation);
+        renderScale = Math.max(1, getIntProperty("window.render_scale", renderScale));
         
         targetFPS = getIntProperty("performance.target_fps", targetFPS);
         vsyncEnabled = getBooleanProperty("performance.vsync", vsyncEnabled);
         renderDistance = getIntProperty("performance.render_distance", renderDistance);
+        parallelRaycast = getBooleanProperty("performance.parallel_raycast", parallelRaycast);
+        raycastThreads = getIntProperty("performance.raycast_threads", raycastThreads);
+        spriteThreads = getIntProperty("performance.sprite_threads", spriteThreads);
+        renderMode = getStringProperty("performance.render_mode", renderMode);
+        pipelinedRender = getBooleanProperty("performance.pipelined_render", pipelinedRender);
+        dynamicResolution = getBooleanProperty("performance.dynamic_resolution", dynamicResolution);
+        frameBudgetMs = getDoubleProperty("performance.frame_budget_ms", frameBudgetMs);
+        minResolutionScale = getDoubleProperty("performance.min_resolution_scale", minResolutionScale);
+        
+        tickRate = Math.max(1, getIntProperty("simulation.tick_rate", tickRate));
+        maxStepsPerFrame = Math.max(1, getIntProperty("simulation.max_steps", maxStepsPerFrame));
         
         playerMoveSpeed = getDoubleProperty("player.move_speed", playerMoveSpeed);
         playerTurnSpeed = getDoubleProperty("player.turn_speed", playerTurnSpeed);
@@ -84,10 +110,23 @@ public class EngineConfig {
             properties.setProperty("window.height", String.valueOf(windowHeight));
             properties.setProperty("window.title", windowTitle);
             properties.setProperty("window.resizable", String.valueOf(windowResizable));
+            properties.setProperty("window.presentation", windowPresentation);
+            properties.setProperty("window.render_scale", String.valueOf(renderScale));
             
             properties.setProperty("performance.target_fps", String.valueOf(targetFPS));
             properties.setProperty("performance.vsync", String.valueOf(vsyncEnabled));
             properties.setProperty("performance.render_distance", String.valueOf(renderDistance));
+            properties.setProperty("performance.parallel_raycast", String.valueOf(parallelRaycast));
+            properties.setProperty("performance.raycast_threads", String.valueOf(raycastThreads));
+            properties.setProperty("performance.sprite_threads", String.valueOf(spriteThreads));
+            properties.setProperty("performance.render_mode", renderMode);
+            properties.setProperty("performance.pipelined_render", String.valueOf(pipelinedRender));
+            properties.setProperty("performance.dynamic_resolution", String.valueOf(dynamicResolution));
+            properties.setProperty("performance.frame_budget_ms", String.valueOf(frameBudgetMs));
+            properties.setProperty("performance.min_resolution_scale", String.valueOf(minResolutionScale));
+            
+            properties.setProperty("simulation.tick_rate", String.valueOf(tickRate));
+            properties.setProperty("simulation.max_steps", String.valueOf(maxStepsPerFrame));
             
             properties.setProperty("player.move_speed", String.valueOf(playerMoveSpeed));
             properties.setProperty("player.turn_speed", String.valueOf(playerTurnSpeed));
@@ -158,6 +197,21 @@ public class EngineConfig {
         this.windowResizable = windowResizable;
     }
     
+    // swing - кадр рисуется в paintComponent, active - сразу через BufferStrategy
+    public String getWindowPresentation() { return windowPresentation; }
+    public void setWindowPresentation(String windowPresentation) { this.windowPresentation = windowPresentation; }
+    
+    public boolean isActivePresentation() {
+        return "active".equalsIgnoreCase(windowPresentation);
+    }
+    
+    // Во сколько раз внутреннее разрешение меньше окна; кадр растягивается в целое число раз
+    public int getRenderScale() { return renderScale; }
+    public void setRenderScale(int renderScale) { this.renderScale = Math.max(1, renderScale); }
+    
+    public int getRenderWidth() { return Math.max(1, windowWidth / renderScale); }
+    public int getRenderHeight() { return Math.max(1, windowHeight / renderScale); }
+    
     public int getTargetFPS() { return targetFPS; }
     public void setTargetFPS(int targetFPS) { 
         this.targetFPS = Math.max(1, Math.min(300, targetFPS));
@@ -170,6 +224,61 @@ public class EngineConfig {
     public int getRenderDistance() { return renderDistance; }
     public void setRenderDistance(int renderDistance) { this.renderDistance = renderDistance; }
     
+    public boolean isParallelRaycast() { return parallelRaycast; }
+    public void setParallelRaycast(boolean parallelRaycast) { this.parallelRaycast = parallelRaycast; }
+    
+    // 0 - по числу доступных ядер
+    public int getRaycastThreads() { return raycastThreads; }
+    public void setRaycastThreads(int raycastThreads) { this.raycastThreads = Math.max(0, raycastThreads); }
+    
+    public int getSpriteThreads() { return spriteThreads; }
+    public void setSpriteThreads(int spriteThreads) { this.spriteThreads = Math.max(0, spriteThreads); }
+    
+    // raycast - луч на колонку, segments - обход BSP спереди назад; читается при создании RayCaster
+    public String getRenderMode() { return renderMode; }
+    public void setRenderMode(String renderMode) { this.renderMode = renderMode; }
+    
+    // Рендер в отдельном потоке по снимкам мира, пока поток движка считает следующий шаг
+    public boolean isPipelinedRender() { return pipelinedRender; }
+    public void setPipelinedRender(boolean pipelinedRender) { this.pipelinedRender = pipelinedRender; }
+    
+    // Внутреннее разрешение подстраивается под бюджет времени кадра
+    public boolean isDynamicResolution() { return dynamicResolution; }
+    public void setDynamicResolution(boolean dynamicResolution) { this.dynamicResolution = dynamicResolution; }
+    
+    // 0 - бюджет по целевому FPS
+    public double getFrameBudgetMs() { return frameBudgetMs; }
+    public void setFrameBudgetMs(double frameBudgetMs) { this.frameBudgetMs = Math.max(0, frameBudgetMs); }
+    
+    public double getEffectiveFrameBudgetMs() {
+        return frameBudgetMs > 0 ? frameBudgetMs : 1000.0 / targetFPS;
+    }
+    
+    public double getMinResolutionScale() { return minResolutionScale; }
+    public void setMinResolutionScale(double minResolutionScale) {
+        this.minResolutionScale = Math.max(0.1, Math.min(1.0, minResolutionScale));
+    }
+    
+    // Частота шагов симуляции (Гц), не зависит от частоты кадров; читается при запуске цикла движка
+    public int getTickRate() { return tickRate; }
+    public void setTickRate(int tickRate) { this.tickRate = Math.max(1, Math.min(1000, tickRate)); }
+    
+    // Сколько шагов симуляции можно догнать за один кадр, остальное отбрасывается
+    public int getMaxStepsPerFrame() { return maxStepsPerFrame; }
+    public void setMaxStepsPerFrame(int maxStepsPerFrame) { this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame); }
+    
+    public int getEffectiveRaycastThreads() {
+        if (!parallelRaycast) {
+            return 1;
+        }
+        return raycastThreads > 0 ? raycastThreads : Runtime.getRuntime().availableProcessors();
+    }
+    
+    // Потоки обновления спрайтов: 1 - последовательно, 0 - по числу процессоров
+    public int getEffectiveSpriteThreads() {
+        return spriteThreads > 0 ? spriteThreads : Runtime.getRuntime().availableProcessors();
+    }
+    
     public double getPlayerMoveSpeed() { return playerMoveSpeed; }
     public void setPlayerMoveSpeed(double playerMoveSpeed) { this.playerMoveSpeed = playerMoveSpeed; }
     
@@ -0,0 +1,137 @@
+package com.arce.core;
+
+import com.arce.logger.EngineLogger;
+import com.arce.math.Vector2D;
+import com.arce.render.Camera;
+import com.arce.render.FrameSnapshot;
+import com.arce.render.RayCaster;
+import com.arce.render.RenderTarget;
+import com.arce.render.Renderer;
+import com.arce.world.GameMap;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Конвейерный рендер: поток движка публикует снимок мира и сразу переходит к следующему
+ * шагу симуляции, а отдельный поток рисует последний снимок в один из трех кадровых буферов.
+ * Окно показывает последний готовый буфер, поэтому кадр не меняется во время отрисовки на экран.
+ *
+ * Рендерер и RayCaster принадлежат потоку рендера; поток движка работает только со снимками.
+ */
+class FramePipeline {
+    private final EngineLogger logger;
+    private final EngineConfig config;
+    private final Renderer renderer;
+    private final Window window;
+    
+    private final TripleBuffer<FrameSnapshot> snapshots;
+    private final TripleBuffer<RenderTarget> frames;
+    private final Camera camera;
+    private final ResolutionController resolution;
+    private final Thread thread;
+    private volatile boolean running;
+    
+    // Состояние потока рендера
+    private GameMap currentMap;
+    private RayCaster rayCaster;
+    
+    FramePipeline(EngineConfig config, Renderer renderer, Window window) {
+        this.logger = new EngineLogger(FramePipeline.class);
+        this.config = config;
+        this.renderer = renderer;
+        this.window = window;
+        
+        int width = renderer.getScreenWidth();
+        int height = renderer.getScreenHeight();
+        this.snapshots = new TripleBuffer<>(FrameSnapshot::new);
+        this.frames = new TripleBuffer<>(() -> new RenderTarget(width, height));
+        this.camera = new Camera(new Vector2D(0, 0), 0, width, height);
+        this.resolution = Engine.createResolutionController(config);
+        
+        this.thread = new Thread(this::renderLoop, "arce-render");
+        this.thread.setDaemon(true);
+    }
+    
+    void start() {
+        running = true;
+        window.setFrameSource(frames);
+        thread.start();
+        logger.logSuccess("Render pipeline started");
+    }
+    
+    // Снимок, который поток движка заполняет для следующего кадра
+    FrameSnapshot beginFrame() {
+        return snapshots.getBack();
+    }
+    
+    void publishFrame() {
+        snapshots.publish();
+        LockSupport.unpark(thread);
+    }
+    
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (rayCaster != null) {
+            rayCaster.shutdown();
+        }
+        logger.logInfo("Render pipeline stopped");
+    }
+    
+    private void renderLoop() {
+        while (running) {
+            if (!snapshots.update()) {
+                LockSupport.park(this);
+                continue;
+            }
+            
+            try {
+                renderSnapshot(snapshots.getFront());
+            } catch (RuntimeException e) {
+                logger.logError("Render thread failed to draw a frame", e);
+            }
+            
+            frames.publish();
+            window.presentFrame();
+        }
+    }
+    
+    private void renderSnapshot(FrameSnapshot snapshot) {
+        // Буферы догоняют размер рендерера по одному: окно может еще показывать прежний кадр
+        RenderTarget target = frames.getBack();
+        target.ensureSize(renderer.getScreenWidth(), renderer.getScreenHeight());
+        renderer.setRenderTarget(target);
+        
+        GameMap gameMap = snapshot.getGameMap();
+        if (gameMap == null) {
+            renderer.renderNoMapScreen();
+            return;
+        }
+        
+        if (gameMap != currentMap) {
+            if (rayCaster != null) {
+                rayCaster.shutdown();
+            }
+            rayCaster = Engine.createRayCaster(gameMap, config);
+            currentMap = gameMap;
+        }
+        
+        snapshot.applyTo(camera);
+        if (snapshot.isTopDown()) {
+            renderer.renderTopDownView(camera, snapshot);
+        } else {
+            long frameStart = System.nanoTime();
+            renderer.renderFrame(rayCaster.castRays(camera), camera, snapshot);
+            
+            if (resolution != null && resolution.record(System.nanoTime() - frameStart)) {
+                Engine.applyResolution(resolution, renderer, camera, logger);
+            }
+        }
+    }
+}
\ No newline at end of file
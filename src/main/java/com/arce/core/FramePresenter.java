@@ -0,0 +1,62 @@
+package com.arce.core;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Активный вывод кадра: кадр копируется в VolatileImage и выводится через BufferStrategy.
+ * Содержимое обоих может пропасть в любой момент (смена режима экрана, блокировка сессии),
+ * поэтому загрузка и вывод повторяются, пока кадр не будет показан целиком.
+ *
+ * Стратегия и создание VolatileImage передаются снаружи: так цикл повторов проверяется без дисплея.
+ */
+final class FramePresenter {
+    private final BufferStrategy strategy;
+    private final ImageFactory imageFactory;
+    private VolatileImage uploadImage;
+    
+    FramePresenter(BufferStrategy strategy, ImageFactory imageFactory) {
+        this.strategy = strategy;
+        this.imageFactory = imageFactory;
+    }
+    
+    void present(BufferedImage image, GraphicsConfiguration configuration, FrameDrawer drawer) {
+        int imageWidth = image.getWidth();
+        int imageHeight = image.getHeight();
+        
+        do {
+            if (uploadImage == null || uploadImage.getWidth() != imageWidth || uploadImage.getHeight() != imageHeight
+                    || uploadImage.validate(configuration) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (uploadImage != null) {
+                    uploadImage.flush();
+                }
+                uploadImage = imageFactory.create(configuration, imageWidth, imageHeight);
+            }
+            
+            Graphics2D upload = uploadImage.createGraphics();
+            upload.drawImage(image, 0, 0, null);
+            upload.dispose();
+            
+            do {
+                do {
+                    Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                    drawer.draw(g, uploadImage, imageWidth, imageHeight);
+                    g.dispose();
+                } while (strategy.contentsRestored());
+                strategy.show();
+            } while (strategy.contentsLost());
+        } while (uploadImage.contentsLost());
+    }
+    
+    interface ImageFactory {
+        VolatileImage create(GraphicsConfiguration configuration, int width, int height);
+    }
+    
+    interface FrameDrawer {
+        void draw(Graphics2D g, Image image, int imageWidth, int imageHeight);
+    }
+}
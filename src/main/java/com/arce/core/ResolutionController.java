@@ -0,0 +1,77 @@
+package com.arce.core;
+
+/**
+ * Динамическое разрешение: сглаженное время кадра сравнивается с бюджетом,
+ * и внутреннее разрешение меняется ступенями. Ступень - размер окна, деленный на целое число
+ * (render_scale, render_scale + 1, ...), поэтому окно увеличивает кадр любой ступени
+ * в целое число раз без сглаживания, как и кадр номинального размера.
+ * Понижение - когда среднее время выше бюджета. Повышение - только если предсказанное
+ * время на следующей ступени (пропорционально числу пикселей) укладывается в 85% бюджета.
+ * После смены ступени несколько кадров ничего не меняется, чтобы не было колебаний.
+ */
+final class ResolutionController {
+    private static final double SMOOTHING = 0.1;
+    private static final double UPSCALE_HEADROOM = 0.85;
+    private static final int COOLDOWN_FRAMES = 30;
+    
+    private final int windowWidth;
+    private final int windowHeight;
+    private final int baseDivisor;
+    private final long budgetNanos;
+    private final int maxLevel;
+    
+    private int level;
+    private double averageNanos = -1;
+    private int cooldown;
+    
+    ResolutionController(int windowWidth, int windowHeight, int baseDivisor, double budgetMillis, double minScale) {
+        this.windowWidth = windowWidth;
+        this.windowHeight = windowHeight;
+        this.baseDivisor = Math.max(1, baseDivisor);
+        this.budgetNanos = (long) (budgetMillis * 1_000_000);
+        double clampedMinScale = Math.max(0.1, Math.min(1.0, minScale));
+        // Последняя ступень, для которой baseDivisor / (baseDivisor + level) >= minScale
+        this.maxLevel = (int) Math.floor(this.baseDivisor / clampedMinScale - this.baseDivisor + 1e-9);
+    }
+    
+    /**
+     * Учитывает время очередного кадра. Возвращает true, если разрешение изменилось.
+     */
+    boolean record(long frameNanos) {
+        averageNanos = averageNanos < 0 ? frameNanos : averageNanos + (frameNanos - averageNanos) * SMOOTHING;
+        
+        if (cooldown > 0) {
+            cooldown--;
+            return false;
+        }
+        
+        if (averageNanos > budgetNanos && level < maxLevel) {
+            return setLevel(level + 1);
+        }
+        if (level > 0) {
+            double ratio = scaleOf(level - 1) / scaleOf(level);
+            if (averageNanos * ratio * ratio < budgetNanos * UPSCALE_HEADROOM) {
+                return setLevel(level - 1);
+            }
+        }
+        return false;
+    }
+    
+    private boolean setLevel(int newLevel) {
+        // Время кадра пропорционально числу пикселей - пересчитываем среднее под новую ступень
+        double ratio = scaleOf(newLevel) / scaleOf(level);
+        averageNanos *= ratio * ratio;
+        
+        level = newLevel;
+        cooldown = COOLDOWN_FRAMES;
+        return true;
+    }
+    
+    private double scaleOf(int level) {
+        return (double) baseDivisor / (baseDivisor + level);
+    }
+    
+    double getScale() { return scaleOf(level); }
+    int getWidth() { return Math.max(1, windowWidth / (baseDivisor + level)); }
+    int getHeight() { return Math.max(1, windowHeight / (baseDivisor + level)); }
+}
\ No newline at end of file
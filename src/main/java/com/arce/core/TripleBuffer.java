@@ -0,0 +1,55 @@
+package com.arce.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Тройной буфер для одного писателя и одного читателя.
+ * Писатель заполняет свой задний слот и публикует его, читатель забирает последний
+ * опубликованный слот. Ни одна сторона не ждет другую и не видит слот, который
+ * другая сторона сейчас меняет; промежуточные публикации, которые читатель не успел взять, теряются.
+ */
+public final class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+    
+    private final T[] slots;
+    private final AtomicInteger middle;     // индекс среднего слота | FRESH, если он еще не прочитан
+    private int back;                       // принадлежит писателю
+    private int front;                      // принадлежит читателю
+    
+    @SuppressWarnings("unchecked")
+    public TripleBuffer(Supplier<T> factory) {
+        this.slots = (T[]) new Object[] { factory.get(), factory.get(), factory.get() };
+        this.back = 0;
+        this.middle = new AtomicInteger(1);
+        this.front = 2;
+    }
+    
+    // Слот, который заполняет писатель
+    public T getBack() {
+        return slots[back];
+    }
+    
+    // Отдает заполненный слот читателю и забирает себе средний
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+    
+    /**
+     * Забирает последний опубликованный слот, если он новый.
+     * Возвращает false, если с прошлого вызова ничего не публиковалось.
+     */
+    public boolean update() {
+        if ((middle.get() & FRESH) == 0) {
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return true;
+    }
+    
+    // Слот, который сейчас у читателя
+    public T getFront() {
+        return slots[front];
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.arce.core;
 
 import com.arce.logger.EngineLogger;
 import com.arce.core.console.GameConsole;
+import com.arce.render.RenderTarget;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyEvent;
@@ -19,15 +20,30 @@ public class Window extends JPanel implements KeyListener {
     private boolean[] keys = new boolean[256];
     private volatile boolean closeRequested = false;
     private BufferedImage currentFrame;
+    private TripleBuffer<RenderTarget> frameSource;
     private GameConsole gameConsole;
     
+    // Активный вывод (FramePresenter): кадр выводится через BufferStrategy
+    // в момент вызова, а не когда до него дойдет очередь отрисовки Swing
+    private final boolean activePresentation;
+    private final Object presentLock = new Object();
+    private Canvas canvas;
+    private FramePresenter presenter;
+    private boolean canvasWanted = true;
+    
     public Window(int width, int height, String title) {
+        this(width, height, title, false);
+    }
+    
+    public Window(int width, int height, String title, boolean activePresentation) {
         this.logger = new EngineLogger(Window.class);
         this.width = width;
         this.height = height;
+        this.activePresentation = activePresentation;
         
         initWindow(title);
-        logger.logSuccess("Window created: " + width + "x" + height);
+        logger.logSuccess("Window created: " + width + "x" + height
+                          + (activePresentation ? " (active presentation)" : ""));
     }
     
     private void initWindow(String title) {
@@ -42,6 +58,15 @@ public class Window extends JPanel implements KeyListener {
         this.setBackground(Color.BLACK);
         this.setLayout(null);
         
+        if (activePresentation) {
+            canvas = new Canvas();
+            canvas.setBounds(0, 0, width, height);
+            canvas.setIgnoreRepaint(true);
+            canvas.setFocusable(false);
+            canvas.setBackground(Color.BLACK);
+            this.add(canvas);
+        }
+        
         frame.add(this);
         frame.pack();
         frame.setLocationRelativeTo(null);
@@ -69,6 +94,12 @@ public class Window extends JPanel implements KeyListener {
     
     public void show() {
         frame.setVisible(true);
+        
+        if (canvas != null) {
+            canvas.createBufferStrategy(2);
+            presenter = new FramePresenter(canvas.getBufferStrategy(), GraphicsConfiguration::createCompatibleVolatileImage);
+        }
+        
         this.requestFocus();
         logger.logSuccess("Window displayed");
     }
@@ -86,17 +117,107 @@ public class Window extends JPanel implements KeyListener {
     }
     
     public void displayFrame(BufferedImage frame) {
-        this.currentFrame = frame;
-        repaint();
+        synchronized (presentLock) {
+            this.currentFrame = frame;
+        }
+        present();
+    }
+    
+    /**
+     * Конвейерный режим: окно само забирает последний готовый кадр при выводе.
+     * Буфер, который сейчас выводится на экран, поток рендера не трогает.
+     */
+    public void setFrameSource(TripleBuffer<RenderTarget> frameSource) {
+        this.frameSource = frameSource;
+    }
+    
+    public void presentFrame() {
+        present();
+    }
+    
+    private void present() {
+        if (!activePresentation || !updateCanvasVisibility()) {
+            repaint();
+            return;
+        }
+        
+        // Кадры забирают и этот поток, и paintComponent - читатель тройного буфера должен быть один
+        synchronized (presentLock) {
+            takeLatestFrame();
+            if (currentFrame != null) {
+                presentActive(currentFrame);
+            }
+        }
+    }
+    
+    private void takeLatestFrame() {
+        if (frameSource != null && frameSource.update()) {
+            currentFrame = frameSource.getFront().getImage();
+        }
+    }
+    
+    // Консоль - легковесный компонент, поверх Canvas ее не видно: пока она открыта, кадры идут через Swing
+    private boolean updateCanvasVisibility() {
+        boolean wanted = gameConsole == null || !gameConsole.isConsoleVisible();
+        if (wanted != canvasWanted) {
+            canvasWanted = wanted;
+            SwingUtilities.invokeLater(() -> canvas.setVisible(wanted));
+        }
+        return wanted && presenter != null;
+    }
+    
+    private void presentActive(BufferedImage image) {
+        GraphicsConfiguration configuration = canvas.getGraphicsConfiguration();
+        if (configuration == null) {
+            return;
+        }
+        
+        presenter.present(image, configuration, this::drawScaled);
+        Toolkit.getDefaultToolkit().sync();
+    }
+    
+    // Наибольший целый масштаб, при котором кадр помещается в окно
+    private int integerScale(int imageWidth, int imageHeight) {
+        return Math.max(1, Math.min(width / imageWidth, height / imageHeight));
+    }
+    
+    // Каждый кадр увеличивается в целое число раз без сглаживания, остаток окна - черная рамка.
+    // Ступени динамического разрешения - делители размера окна, так что рамка не больше нескольких пикселей
+    private void drawScaled(Graphics2D g, Image image, int imageWidth, int imageHeight) {
+        int scale = integerScale(imageWidth, imageHeight);
+        int outputWidth = imageWidth * scale;
+        int outputHeight = imageHeight * scale;
+        
+        if (outputWidth < width || outputHeight < height) {
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, width, height);
+        }
+        
+        if (scale == 1) {
+            g.drawImage(image, 0, 0, null);
+        } else {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g.drawImage(image, 0, 0, outputWidth, outputHeight, null);
+        }
     }
     
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         
-        if (currentFrame != null) {
-            g.drawImage(currentFrame, 0, 0, null);
-        } else {
+        // Кадр рисуется под блокировкой: иначе present() может забрать следующий кадр и вернуть
+        // этот буфер потоку рендера, пока он еще выводится на экран
+        boolean drawn;
+        synchronized (presentLock) {
+            takeLatestFrame();
+            BufferedImage image = currentFrame;
+            drawn = image != null;
+            if (drawn) {
+                drawScaled((Graphics2D) g, image, image.getWidth(), image.getHeight());
+            }
+        }
+        
+        if (!drawn) {
             g.setColor(Color.BLACK);
             g.fillRect(0, 0, width, height);
             
@@ -0,0 +1,99 @@
+package com.arce.core.headless;
+
+import com.arce.render.Camera;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Путь камеры для headless-рендера: ключевые точки (x, y, угол), между которыми
+ * положение интерполируется линейно, а угол - по кратчайшей дуге.
+ *
+ * Формат файла - по точке на строку: {@code x y angleDegrees}, строки с # игнорируются.
+ */
+public final class CameraPath {
+    private final double[] x;
+    private final double[] y;
+    private final double[] angle;
+    private final int count;
+    
+    private CameraPath(double[] x, double[] y, double[] angle, int count) {
+        this.x = x;
+        this.y = y;
+        this.angle = angle;
+        this.count = count;
+    }
+    
+    public static CameraPath load(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        double[] x = new double[lines.size()];
+        double[] y = new double[lines.size()];
+        double[] angle = new double[lines.size()];
+        int count = 0;
+        
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            
+            String[] parts = line.split("\\s+");
+            if (parts.length != 3) {
+                throw new IOException(file + ":" + (i + 1) + ": expected 'x y angleDegrees'");
+            }
+            try {
+                x[count] = Double.parseDouble(parts[0]);
+                y[count] = Double.parseDouble(parts[1]);
+                angle[count] = Math.toRadians(Double.parseDouble(parts[2]));
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ":" + (i + 1) + ": " + e.getMessage());
+            }
+            count++;
+        }
+        
+        if (count == 0) {
+            throw new IOException(file + ": camera path is empty");
+        }
+        return new CameraPath(Arrays.copyOf(x, count), Arrays.copyOf(y, count), Arrays.copyOf(angle, count), count);
+    }
+    
+    /**
+     * Полный оборот на месте - путь по умолчанию для превью карты.
+     */
+    public static CameraPath turnAround(double x, double y, double startAngle) {
+        double[] angles = new double[5];
+        for (int i = 0; i < angles.length; i++) {
+            angles[i] = startAngle + i * Math.PI / 2;
+        }
+        double[] xs = new double[angles.length];
+        double[] ys = new double[angles.length];
+        Arrays.fill(xs, x);
+        Arrays.fill(ys, y);
+        return new CameraPath(xs, ys, angles, angles.length);
+    }
+    
+    /**
+     * Ставит камеру в точку пути; t от 0 (первая точка) до 1 (последняя).
+     */
+    public void apply(double t, Camera camera) {
+        if (count == 1) {
+            camera.setPosition(x[0], y[0]);
+            camera.setAngle(angle[0]);
+            return;
+        }
+        
+        double position = Math.max(0.0, Math.min(1.0, t)) * (count - 1);
+        int i = Math.min((int) position, count - 2);
+        double f = position - i;
+        
+        double delta = Math.IEEEremainder(angle[i + 1] - angle[i], 2 * Math.PI);
+        
+        camera.setPosition(x[i] + (x[i + 1] - x[i]) * f, y[i] + (y[i + 1] - y[i]) * f);
+        camera.setAngle(angle[i] + delta * f);
+    }
+    
+    public int getPointCount() { return count; }
+}
\ No newline at end of file
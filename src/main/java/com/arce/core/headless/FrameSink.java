@@ -0,0 +1,14 @@
+package com.arce.core.headless;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Куда headless-рендер отдает готовые кадры. Кадр действителен только во время вызова.
+ */
+public interface FrameSink extends AutoCloseable {
+    void writeFrame(int index, BufferedImage frame) throws IOException;
+    
+    @Override
+    void close() throws IOException;
+}
\ No newline at end of file
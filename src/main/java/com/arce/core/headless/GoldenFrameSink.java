@@ -0,0 +1,65 @@
+package com.arce.core.headless;
+
+import com.arce.logger.EngineLogger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Сверка с эталонными кадрами, записанными раньше через {@link PngFrameSink} с тем же префиксом.
+ * Кадр считается несовпавшим, если отличается хотя бы один пиксель или эталона нет.
+ */
+public final class GoldenFrameSink implements FrameSink {
+    private final EngineLogger logger;
+    private final File directory;
+    private final String prefix;
+    private int mismatchedFrames;
+    
+    public GoldenFrameSink(File directory, String prefix) {
+        this.logger = new EngineLogger(GoldenFrameSink.class);
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+    
+    @Override
+    public void writeFrame(int index, BufferedImage frame) throws IOException {
+        File file = new File(directory, PngFrameSink.frameFileName(prefix, index));
+        if (!file.isFile()) {
+            logger.logInfo("Missing golden frame " + file);
+            mismatchedFrames++;
+            return;
+        }
+        
+        BufferedImage expected = ImageIO.read(file);
+        if (expected == null) {
+            throw new IOException("Cannot read golden frame " + file);
+        }
+        if (expected.getWidth() != frame.getWidth() || expected.getHeight() != frame.getHeight()) {
+            logger.logInfo("Frame " + index + ": size " + frame.getWidth() + "x" + frame.getHeight()
+                           + ", golden " + expected.getWidth() + "x" + expected.getHeight());
+            mismatchedFrames++;
+            return;
+        }
+        
+        int differing = 0;
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                if ((frame.getRGB(x, y) & 0xFFFFFF) != (expected.getRGB(x, y) & 0xFFFFFF)) {
+                    differing++;
+                }
+            }
+        }
+        if (differing > 0) {
+            logger.logInfo("Frame " + index + ": " + differing + " pixels differ from " + file);
+            mismatchedFrames++;
+        }
+    }
+    
+    public int getMismatchedFrames() { return mismatchedFrames; }
+    
+    @Override
+    public void close() {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.arce.core.headless;
+
+import com.arce.core.Engine;
+import com.arce.core.EngineConfig;
+import com.arce.core.managers.AssetManager;
+import com.arce.core.managers.SpriteManager;
+import com.arce.logger.EngineLogger;
+import com.arce.math.Vector2D;
+import com.arce.render.Camera;
+import com.arce.render.ColumnBuffer;
+import com.arce.render.RayCaster;
+import com.arce.render.Renderer;
+import com.arce.world.GameMap;
+import com.arce.world.Sector;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Рендер без окна: RayCaster и Renderer проходят камерой по заданному пути и отдают кадры в FrameSink.
+ * AWT нужен только для BufferedImage, так что работает с java.awt.headless=true.
+ * Отладочный текст выключен - кадры зависят только от карты, пути и размера.
+ */
+public final class HeadlessRenderer {
+    private static final double EYE_HEIGHT = 41.0;
+    
+    private final EngineLogger logger;
+    private final EngineConfig config;
+    private final Renderer renderer;
+    private final Camera camera;
+    
+    public HeadlessRenderer(EngineConfig config, AssetManager assetManager, int width, int height) {
+        this.logger = new EngineLogger(HeadlessRenderer.class);
+        this.config = config;
+        this.renderer = new Renderer(width, height);
+        this.renderer.setAssetManager(assetManager);
+        this.renderer.setShowDebugInfo(false);
+        this.camera = new Camera(new Vector2D(0, 0), 0, width, height);
+    }
+    
+    /**
+     * Рисует frameCount кадров, равномерно распределенных по пути (первый и последний - концы пути).
+     */
+    public void render(GameMap gameMap, SpriteManager spriteManager, CameraPath path, int frameCount,
+                       FrameSink sink) throws IOException {
+        RayCaster rayCaster = Engine.createRayCaster(gameMap, config);
+        rayCaster.setSpriteManager(spriteManager);
+        
+        try {
+            Sector sector = null;
+            long start = System.nanoTime();
+            
+            for (int i = 0; i < frameCount; i++) {
+                path.apply(frameCount > 1 ? (double) i / (frameCount - 1) : 0.0, camera);
+                
+                sector = gameMap.findSector(camera.getX(), camera.getY(), sector);
+                if (sector != null) {
+                    camera.setHeight(sector.getFloorHeight() + EYE_HEIGHT);
+                }
+                
+                ColumnBuffer columns = rayCaster.castRays(camera);
+                BufferedImage frame = renderer.renderFrame(columns, camera, spriteManager);
+                sink.writeFrame(i, frame);
+            }
+            
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            logger.logInfo("Rendered {} frames {}x{} in {} s", frameCount, renderer.getScreenWidth(),
+                           renderer.getScreenHeight(), String.format("%.2f", seconds));
+        } finally {
+            rayCaster.shutdown();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.arce.core.headless;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Кадры в отдельные PNG: {@code <prefix>_0000.png}, {@code <prefix>_0001.png}, ...
+ */
+public final class PngFrameSink implements FrameSink {
+    private final File directory;
+    private final String prefix;
+    
+    public PngFrameSink(File directory, String prefix) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create output directory " + directory);
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+    
+    static String frameFileName(String prefix, int index) {
+        return String.format("%s_%04d.png", prefix, index);
+    }
+    
+    @Override
+    public void writeFrame(int index, BufferedImage frame) throws IOException {
+        File file = new File(directory, frameFileName(prefix, index));
+        if (!ImageIO.write(frame, "png", file)) {
+            throw new IOException("No PNG writer available for " + file);
+        }
+    }
+    
+    @Override
+    public void close() {
+    }
+}
\ No newline at end of file
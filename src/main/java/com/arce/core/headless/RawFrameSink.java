@@ -0,0 +1,47 @@
+package com.arce.core.headless;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Кадры подряд в сырой RGB поток, 3 байта на пиксель без заголовков
+ * (например, для {@code ffmpeg -f rawvideo -pix_fmt rgb24 -s WxH}).
+ */
+public final class RawFrameSink implements FrameSink {
+    private final OutputStream out;
+    private byte[] row = new byte[0];
+    
+    public RawFrameSink(OutputStream out) {
+        this.out = new BufferedOutputStream(out, 1 << 16);
+    }
+    
+    @Override
+    public void writeFrame(int index, BufferedImage frame) throws IOException {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        if (row.length != width * 3) {
+            row = new byte[width * 3];
+        }
+        
+        int[] pixels = frame.getType() == BufferedImage.TYPE_INT_RGB ?
+            ((DataBufferInt) frame.getRaster().getDataBuffer()).getData() : null;
+        
+        for (int y = 0; y < height; y++) {
+            for (int x = 0, b = 0; x < width; x++) {
+                int rgb = pixels != null ? pixels[y * width + x] : frame.getRGB(x, y);
+                row[b++] = (byte) (rgb >> 16);
+                row[b++] = (byte) (rgb >> 8);
+                row[b++] = (byte) rgb;
+            }
+            out.write(row);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
\ No newline at end of file
@@ -1,35 +1,122 @@
 package com.arce.core.managers;
 
 import com.arce.assets.Texture;
+import com.arce.assets.TextureAtlas;
 import com.arce.logger.EngineLogger;
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.io.File;
 
+/**
+ * Текстуры движка. При регистрации текстура получает плотный целочисленный номер (handle),
+ * а ее тексели переносятся в атлас. Рендер получает текстуры по номеру или по textureId
+ * карты через готовую таблицу - индексом массива, без поиска по имени.
+ */
 public class AssetManager {
+    public static final int DEFAULT_HANDLE = 0;     // "default" - первое имя в TEXTURE_ID_NAMES
+    
+    // Имена текстур для textureId карты
+    private static final String[] TEXTURE_ID_NAMES = {"default", "wall_1", "wall_2", "wall_3", "wall_4", "wall_5", "wall_6", "wall_7", "wall_8", "red_wall", "blue_wall", "green_wall", "yellow_wall", "brick"};
+    
     private final EngineLogger logger;
     private final Map<String, Texture> textures;
+    private final Map<String, Integer> handles;
+    private final TextureAtlas atlas;
+    // Копируется при каждой записи: поток рендера читает таблицу без блокировок
+    private volatile Texture[] texturesByHandle;
+    private final int[] handlesById;     // textureId карты -> номер текстуры
+    // Замененные и выгруженные текстуры: кадр, который сейчас рисуется, еще может читать их тексели
+    private final List<Texture> retiredTextures = new ArrayList<>();
     private String assetPath = "assets/";
     
     public AssetManager() {
         this.logger = new EngineLogger(AssetManager.class);
         this.textures = new ConcurrentHashMap<>();
+        this.handles = new ConcurrentHashMap<>();
+        this.atlas = new TextureAtlas();
+        this.texturesByHandle = new Texture[0];
+        this.handlesById = new int[TEXTURE_ID_NAMES.length];
+        
+        // Номера для textureId карты выдаются сразу, текстуры встают на них по мере загрузки
+        for (int id = 0; id < TEXTURE_ID_NAMES.length; id++) {
+            handlesById[id] = reserveHandle(TEXTURE_ID_NAMES[id]);
+        }
         
         createDefaultTextures();
     }
     
     private void createDefaultTextures() {
-        textures.put("default", Texture.createDefault());
-        textures.put("brick", Texture.createBrick("brick"));
-        textures.put("red_wall", Texture.createSolid("red_wall", Color.RED, 64));
-        textures.put("blue_wall", Texture.createSolid("blue_wall", Color.BLUE, 64));
-        textures.put("green_wall", Texture.createSolid("green_wall", Color.GREEN, 64));
-        textures.put("yellow_wall", Texture.createSolid("yellow_wall", Color.YELLOW, 64));
+        register("default", Texture.createDefault());
+        register("brick", Texture.createBrick("brick"));
+        register("red_wall", Texture.createSolid("red_wall", Color.RED, 64));
+        register("blue_wall", Texture.createSolid("blue_wall", Color.BLUE, 64));
+        register("green_wall", Texture.createSolid("green_wall", Color.GREEN, 64));
+        register("yellow_wall", Texture.createSolid("yellow_wall", Color.YELLOW, 64));
         
         logger.logSuccess("Created default textures");
     }
     
+    /**
+     * Кладет текстуру в атлас и ставит на номер ее имени. Повторная регистрация имени заменяет
+     * текстуру под прежним номером, так что уже разрешенные номера остаются верными,
+     * а блок прежней текстуры в атласе освобождается на границе кадра (см. endFrame).
+     */
+    private synchronized int register(String name, Texture texture) {
+        atlas.add(texture);
+        
+        int handle = reserveHandle(name);
+        Texture previous = texturesByHandle[handle];
+        setTextureSlot(handle, texture);
+        if (previous != null && previous != texture) {
+            retiredTextures.add(previous);
+        }
+        textures.put(name, texture);
+        return handle;
+    }
+    
+    private synchronized int reserveHandle(String name) {
+        Integer existing = handles.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        int handle = texturesByHandle.length;
+        texturesByHandle = Arrays.copyOf(texturesByHandle, handle + 1);
+        handles.put(name, handle);
+        return handle;
+    }
+    
+    private synchronized void setTextureSlot(int handle, Texture texture) {
+        Texture[] table = texturesByHandle.clone();
+        table[handle] = texture;
+        texturesByHandle = table;
+    }
+    
+    // Номер остается за именем; до повторной загрузки по нему отдается текстура по умолчанию
+    private synchronized void releaseTexture(String name, Texture texture) {
+        setTextureSlot(handles.get(name), null);
+        retiredTextures.add(texture);
+        texture.dispose();
+    }
+    
+    /**
+     * Граница кадра: блоки текстур, снятых с номеров до этого вызова, возвращаются в атлас.
+     * Вызывается потоком рендера между кадрами - следующий кадр читает уже новую таблицу,
+     * поэтому блок, который займет другая текстура, больше никто не читает.
+     */
+    public synchronized void endFrame() {
+        if (retiredTextures.isEmpty()) {
+            return;
+        }
+        for (Texture texture : retiredTextures) {
+            atlas.release(texture);
+        }
+        retiredTextures.clear();
+    }
+    
     public Texture loadTexture(String name, String filename) {
         if (textures.containsKey(name)) {
             logger.logDebug("Texture already loaded: " + name);
@@ -46,7 +133,7 @@ public class AssetManager {
             }
             
             Texture texture = new Texture(name, fullPath);
-            textures.put(name, texture);
+            register(name, texture);
             logger.logSuccess("Loaded texture: " + name + " from " + filename);
             return texture;
             
@@ -65,24 +152,43 @@ public class AssetManager {
         return texture;
     }
     
+    /**
+     * Номер текстуры по имени - для разрешения один раз при загрузке, а не в каждом кадре.
+     * Для еще не загруженного имени номер резервируется: до загрузки по нему отдается текстура по умолчанию.
+     */
+    public int getTextureHandle(String name) {
+        if (!textures.containsKey(name)) {
+            logger.logInfo("Texture {} is not loaded yet, using default until it is", name);
+        }
+        return reserveHandle(name);
+    }
+    
+    public Texture getTextureByHandle(int handle) {
+        Texture[] table = texturesByHandle;
+        if (handle >= 0 && handle < table.length) {
+            Texture texture = table[handle];
+            if (texture != null) {
+                return texture;
+            }
+        }
+        return getDefaultTexture();
+    }
+    
     public Texture getTextureById(int textureId) {
-        String[] defaultNames = {"default", "wall_1", "wall_2", "wall_3", "wall_4", "wall_5", "wall_6", "wall_7", "wall_8", "red_wall", "blue_wall", "green_wall", "yellow_wall", "brick"};
-        
-        if (textureId >= 0 && textureId < defaultNames.length) {
-            return getTexture(defaultNames[textureId]);
+        if (textureId >= 0 && textureId < handlesById.length) {
+            return getTextureByHandle(handlesById[textureId]);
         }
-        
         return getDefaultTexture();
     }
     
     private Texture getDefaultTexture() {
-        return textures.get("default");
+        return texturesByHandle[DEFAULT_HANDLE];
     }
     
     public Texture createProceduralTexture(String name, TextureGenerator generator, int size) {
         try {
             Texture texture = generator.generate(name, size);
-            textures.put(name, texture);
+            register(name, texture);
             logger.logSuccess("Created procedural texture: " + name);
             return texture;
         } catch (Exception e) {
@@ -94,7 +200,7 @@ public class AssetManager {
     public void unloadTexture(String name) {
         Texture texture = textures.remove(name);
         if (texture != null && !isDefaultTexture(name)) {
-            texture.dispose();
+            releaseTexture(name, texture);
             logger.logInfo("Unloaded texture: " + name);
         }
     }
@@ -108,7 +214,7 @@ public class AssetManager {
     public void unloadAll() {
         textures.entrySet().removeIf(entry -> {
             if (!isDefaultTexture(entry.getKey())) {
-                entry.getValue().dispose();
+                releaseTexture(entry.getKey(), entry.getValue());
                 return true;
             }
             return false;
@@ -129,6 +235,10 @@ public class AssetManager {
         return textures.size(); 
     }
     
+    public TextureAtlas getAtlas() {
+        return atlas;
+    }
+    
     public Map<String, Texture> getAllTextures() {
         return Map.copyOf(textures);
     }
@@ -1,164 +1,282 @@
 package com.arce.core.managers;
 
 import com.arce.entities.Sprite;
+import com.arce.entities.SpritePool;
 import com.arce.math.Vector2D;
 import com.arce.world.GameMap;
 import com.arce.world.Sector;
-import com.arce.render.Camera;
+import com.arce.render.SpriteBatch;
 import com.arce.logger.EngineLogger;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToIntFunction;
 
+/**
+ * Спрайты карты. Данные лежат в {@link SpritePool}; обновление и сбор видимых спрайтов
+ * идут по слотам пула и спискам секторов без выделения памяти.
+ */
 public class SpriteManager {
+    private static final int INITIAL_CAPACITY = 256;
+    // Слоты идут в основном в порядке создания, поэтому спрайты одной волны (анимированные, неактивные,
+    // в сложном секторе) лежат рядом и цена частей разная. Несколько частей на поток дают свободным
+    // потокам что забрать; MIN_CHUNK_SIZE держит часть заметно дороже самого fork
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_SIZE = 256;
+    
     private final EngineLogger logger;
-    private final Map<Integer, Sprite> sprites;
-    private final Map<Sector, List<Sprite>> spritesBySector;
+    private final SpritePool pool;
+    private final Map<Integer, Sprite> spritesById;
     private GameMap gameMap;
     
+    private int threadCount;
+    private ForkJoinPool workers;
+    private UpdateChunk[] chunks;
+    private int activeChunks;
+    private final UpdateChunk serialChunk;
+    private final UpdateTask updateTask;
+    
     public SpriteManager(GameMap gameMap) {
         this.logger = new EngineLogger(SpriteManager.class);
-        this.sprites = new ConcurrentHashMap<>();
-        this.spritesBySector = new ConcurrentHashMap<>();
+        this.pool = new SpritePool(INITIAL_CAPACITY);
+        this.spritesById = new HashMap<>();
         this.gameMap = gameMap;
+        this.threadCount = 1;
+        this.serialChunk = new UpdateChunk();
+        this.updateTask = new UpdateTask();
+    }
+    
+    /**
+     * Включает параллельное обновление: слоты пула режутся на части, которые обрабатывает
+     * пул ForkJoin. 1 поток - обычный последовательный режим.
+     */
+    public void setThreadCount(int threads) {
+        int newCount = Math.max(1, threads);
+        if (newCount == threadCount && (newCount == 1 || workers != null)) {
+            return;
+        }
+        
+        shutdown();
+        threadCount = newCount;
+        
+        if (threadCount > 1) {
+            workers = new ForkJoinPool(threadCount);
+            chunks = new UpdateChunk[threadCount * CHUNKS_PER_THREAD];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new UpdateChunk();
+            }
+            logger.logInfo("Parallel sprite update enabled: {} threads", threadCount);
+        } else {
+            logger.logInfo("Serial sprite update enabled");
+        }
+    }
+    
+    public int getThreadCount() { return threadCount; }
+    
+    /**
+     * Перевод имен текстур в номера (обычно AssetManager::getTextureHandle). Имена спрайтов
+     * и кадров анимации разрешаются при установке, а не в каждом кадре.
+     */
+    public void setTextureResolver(ToIntFunction<String> resolver) {
+        pool.setTextureResolver(resolver);
+    }
+    
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
+        chunks = null;
     }
     
     public Sprite createSprite(String name, Vector2D position, String textureName) {
-        Sprite sprite = new Sprite(name, position, textureName, Sprite.SpriteType.BILLBOARD);
-        addSprite(sprite);
-        return sprite;
+        return addSprite(name, position, textureName, Sprite.SpriteType.BILLBOARD);
     }
     
     public Sprite createAnimatedSprite(String name, Vector2D position, 
                                      String[] frameNames, double frameRate) {
-        Sprite sprite = new Sprite(name, position, frameNames[0], Sprite.SpriteType.ANIMATED);
+        Sprite sprite = addSprite(name, position, frameNames[0], Sprite.SpriteType.ANIMATED);
         sprite.setAnimation(frameNames, frameRate, true);
-        addSprite(sprite);
         return sprite;
     }
     
-    private void addSprite(Sprite sprite) {
-        sprites.put(sprite.getId(), sprite);
+    private Sprite addSprite(String name, Vector2D position, String textureName, Sprite.SpriteType type) {
+        int slot = pool.allocate(name, position.x, position.y, textureName, type);
+        pool.setSector(slot, gameMap.findSector(position.x, position.y));
         
-        Sector sector = gameMap.findSector(sprite.getPosition());
-        sprite.setCurrentSector(sector);
-        
-        if (sector != null) {
-            spritesBySector.computeIfAbsent(sector, k -> new ArrayList<>()).add(sprite);
-        }
+        Sprite sprite = pool.getHandle(slot);
+        spritesById.put(sprite.getId(), sprite);
         
         logger.logDebug("Added sprite: " + sprite);
+        return sprite;
     }
     
     public void destroySprite(int spriteId) {
-        Sprite sprite = sprites.remove(spriteId);
+        Sprite sprite = spritesById.remove(spriteId);
         if (sprite != null) {
-            if (sprite.getCurrentSector() != null) {
-                List<Sprite> sectorSprites = spritesBySector.get(sprite.getCurrentSector());
-                if (sectorSprites != null) {
-                    sectorSprites.remove(sprite);
-                }
-            }
             logger.logDebug("Destroyed sprite: " + sprite);
+            pool.free(sprite.getSlot());
         }
     }
     
+    /**
+     * Анимация и поиск сектора для всех активных спрайтов. Части только читают карту и пишут
+     * в свои слоты, а смены секторов копят у себя; списки секторов меняются уже после всех частей,
+     * по порядку слотов, поэтому результат не зависит от числа потоков.
+     */
     public void update(double deltaTime) {
-        for (Sprite sprite : sprites.values()) {
-            if (sprite.isActive()) {
-                sprite.update(deltaTime);
-                
-                Sector newSector = gameMap.findSector(sprite.getPosition());
-                if (newSector != sprite.getCurrentSector()) {
-                    moveSpriteBetweenSectors(sprite, sprite.getCurrentSector(), newSector);
-                }
-            }
+        int spriteCount = pool.size();
+        int chunkCount = workers != null ? Math.min(chunks.length, spriteCount / MIN_CHUNK_SIZE) : 0;
+        
+        if (chunkCount < 2) {
+            serialChunk.prepare(0, spriteCount, deltaTime);
+            serialChunk.compute();
+            serialChunk.applySectorChanges();
+            return;
         }
-    }
-    
-    private void moveSpriteBetweenSectors(Sprite sprite, Sector oldSector, Sector newSector) {
-        if (oldSector != null) {
-            List<Sprite> oldSectorSprites = spritesBySector.get(oldSector);
-            if (oldSectorSprites != null) {
-                oldSectorSprites.remove(sprite);
-            }
+        
+        for (int i = 0; i < chunkCount; i++) {
+            int from = (int) ((long) spriteCount * i / chunkCount);
+            int to = (int) ((long) spriteCount * (i + 1) / chunkCount);
+            chunks[i].reinitialize();
+            chunks[i].prepare(from, to, deltaTime);
         }
+        activeChunks = chunkCount;
+        
+        updateTask.reinitialize();
+        workers.invoke(updateTask);
         
-        sprite.setCurrentSector(newSector);
-        if (newSector != null) {
-            spritesBySector.computeIfAbsent(newSector, k -> new ArrayList<>()).add(sprite);
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i].applySectorChanges();
         }
+    }
+    
+    // Массив частей рассчитан на все потоки, а в кадре работают только первые activeChunks
+    private final class UpdateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
         
-        logger.logDebug("Sprite moved between sectors: " + sprite.getName());
+        @Override
+        protected void compute() {
+            for (int i = 1; i < activeChunks; i++) {
+                chunks[i].fork();
+            }
+            chunks[0].compute();
+            for (int i = 1; i < activeChunks; i++) {
+                chunks[i].join();
+            }
+        }
     }
     
-    public List<Sprite> getVisibleSprites(Camera camera) {
-        List<Sprite> visibleSprites = new ArrayList<>();
-        Vector2D cameraPos = camera.getPosition();
+    private final class UpdateChunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private int from;
+        private int to;
+        private double deltaTime;
+        
+        // Найденные смены секторов: слот и новый сектор
+        private int[] movedSlots = new int[16];
+        private Sector[] movedSectors = new Sector[16];
+        private int movedCount;
+        
+        void prepare(int from, int to, double deltaTime) {
+            this.from = from;
+            this.to = to;
+            this.deltaTime = deltaTime;
+            this.movedCount = 0;
+        }
         
-        Sector cameraSector = gameMap.findSector(cameraPos);
-        if (cameraSector != null) {
-            List<Sprite> sectorSprites = spritesBySector.get(cameraSector);
-            if (sectorSprites != null) {
-                for (Sprite sprite : sectorSprites) {
-                    if (sprite.isVisible() && isInView(sprite, camera)) {
-                        visibleSprites.add(sprite);
+        @Override
+        protected void compute() {
+            pool.animate(from, to, deltaTime);
+            
+            for (int slot = from; slot < to; slot++) {
+                if (pool.hasFlags(slot, SpritePool.ALIVE | SpritePool.ACTIVE)) {
+                    Sector current = pool.getSector(slot);
+                    Sector newSector = gameMap.findSector(pool.getX(slot), pool.getY(slot), current);
+                    if (newSector != current) {
+                        recordMove(slot, newSector);
                     }
                 }
             }
         }
         
-        visibleSprites.sort((s1, s2) -> Double.compare(
-            s2.distanceToCamera(cameraPos), 
-            s1.distanceToCamera(cameraPos)
-        ));
+        private void recordMove(int slot, Sector newSector) {
+            if (movedCount == movedSlots.length) {
+                movedSlots = Arrays.copyOf(movedSlots, movedCount * 2);
+                movedSectors = Arrays.copyOf(movedSectors, movedCount * 2);
+            }
+            movedSlots[movedCount] = slot;
+            movedSectors[movedCount] = newSector;
+            movedCount++;
+        }
         
-        return visibleSprites;
+        void applySectorChanges() {
+            for (int i = 0; i < movedCount; i++) {
+                pool.setSector(movedSlots[i], movedSectors[i]);
+                movedSectors[i] = null;
+            }
+            movedCount = 0;
+        }
     }
     
-    private boolean isInView(Sprite sprite, Camera camera) {
-        Vector2D cameraPos = camera.getPosition();
-        Vector2D cameraDir = camera.getDirection();
-        Vector2D toSprite = sprite.getPosition().subtract(cameraPos);
-        
-        double dot = toSprite.dot(cameraDir);
-        if (dot <= 0) return false;
-        
-        double angle = Math.acos(dot / toSprite.length());
-        return angle <= camera.getFov() / 2.0 + 0.2;
+    /**
+     * Собирает в batch видимые спрайты из заданных секторов - обычно это сектора,
+     * до которых дошли лучи кадра (сектор камеры и все видимые через порталы).
+     */
+    public void collectVisibleSprites(Sector[] sectors, int sectorCount, SpriteBatch batch) {
+        for (int s = 0; s < sectorCount; s++) {
+            for (int slot = pool.firstInSector(sectors[s]); slot >= 0; slot = pool.nextInSector(slot)) {
+                if (pool.isDrawable(slot)) {
+                    batch.add(pool.getX(slot), pool.getY(slot), pool.getWidth(slot), pool.getHeight(slot),
+                              pool.getElevation(slot), pool.getCurrentTexture(slot),
+                              pool.getCurrentTextureHandle(slot), sectors[s]);
+                }
+            }
+        }
     }
     
     public Sprite getSprite(int id) {
-        return sprites.get(id);
+        return spritesById.get(id);
     }
     
     public Collection<Sprite> getAllSprites() {
-        return sprites.values();
+        return Collections.unmodifiableCollection(spritesById.values());
     }
     
     public List<Sprite> getSpritesInSector(Sector sector) {
-        return spritesBySector.getOrDefault(sector, Collections.emptyList());
+        List<Sprite> result = new ArrayList<>();
+        for (int slot = pool.firstInSector(sector); slot >= 0; slot = pool.nextInSector(slot)) {
+            result.add(pool.getHandle(slot));
+        }
+        return result;
     }
     
     public List<Sprite> findSpritesByName(String name) {
-        return sprites.values().stream()
+        return spritesById.values().stream()
                 .filter(sprite -> sprite.getName().equals(name))
                 .toList();
     }
     
     public void clear() {
-        sprites.clear();
-        spritesBySector.clear();
+        pool.clear();
+        spritesById.clear();
         logger.logInfo("Cleared all sprites");
     }
     
     public int getSpriteCount() {
-        return sprites.size();
+        return pool.size();
+    }
+    
+    // Прямой доступ к данным спрайтов для горячих циклов (снимок кадра, карта сверху)
+    public SpritePool getPool() {
+        return pool;
     }
     
     public Map<String, Integer> getSpriteTypeStats() {
         Map<String, Integer> stats = new HashMap<>();
-        for (Sprite sprite : sprites.values()) {
-            String type = sprite.getType().toString();
+        for (int slot = 0, n = pool.size(); slot < n; slot++) {
+            String type = pool.getType(slot).toString();
             stats.put(type, stats.getOrDefault(type, 0) + 1);
         }
         return stats;
@@ -166,6 +284,6 @@ public class SpriteManager {
     
     @Override
     public String toString() {
-        return String.format("SpriteManager(sprites: %d)", sprites.size());
+        return String.format("SpriteManager(sprites: %d)", pool.size());
     }
 }
\ No newline at end of file
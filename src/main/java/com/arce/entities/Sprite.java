@@ -3,115 +3,103 @@ package com.arce.entities;
 import com.arce.math.Vector2D;
 import com.arce.world.Sector;
 
+/**
+ * Ручка спрайта: сами данные лежат в {@link SpritePool}, объект хранит только номер слота.
+ * Номер меняется, когда пул уплотняется. После уничтожения спрайта ручка недействительна.
+ */
 public class Sprite {
-    private static int nextId = 1;
-    
+    private final SpritePool pool;
     private final int id;
-    private String name;
-    private Vector2D position;
-    private double height;          // Высота над полом сектора
-    private double width;           // Ширина спрайта в мире
-    private double spriteHeight;    // Высота спрайта в мире
-    private String textureName;
-    private SpriteType type;
-    private boolean visible;
-    private boolean active;
-    private Sector currentSector;
-    
-    private String[] animationFrames;
-    private double frameRate;
-    private double currentFrame;
-    private boolean looping;
-    
-    public Sprite(String name, Vector2D position, String textureName, SpriteType type) {
-        this.id = nextId++;
-        this.name = name;
-        this.position = new Vector2D(position);
-        this.textureName = textureName;
-        this.type = type;
-        this.height = 0.0;
-        this.width = 32.0;
-        this.spriteHeight = 32.0;
-        this.visible = true;
-        this.active = true;
-        this.currentFrame = 0.0;
-        this.frameRate = 1.0;
-        this.looping = true;
+    private int slot;
+    
+    Sprite(SpritePool pool, int slot, int id) {
+        this.pool = pool;
+        this.slot = slot;
+        this.id = id;
+    }
+    
+    void detach() {
+        slot = -1;
+    }
+    
+    // Пул уплотняется при удалении спрайтов, и спрайт переезжает в другой слот
+    void relocate(int newSlot) {
+        slot = newSlot;
+    }
+    
+    private int slot() {
+        if (slot < 0) {
+            throw new IllegalStateException("Sprite " + id + " was destroyed");
+        }
+        return slot;
     }
     
     public void update(double deltaTime) {
-        if (!active) return;
-        
-        if (type == SpriteType.ANIMATED && animationFrames != null) {
-            currentFrame += frameRate * deltaTime;
-            
-            if (currentFrame >= animationFrames.length) {
-                if (looping) {
-                    currentFrame = 0.0;
-                } else {
-                    currentFrame = animationFrames.length - 1;
-                }
-            }
+        int s = slot();
+        if (pool.hasFlags(s, SpritePool.ACTIVE | SpritePool.ANIMATED)) {
+            pool.advanceFrame(s, deltaTime);
         }
     }
     
     public String getCurrentTextureName() {
-        if (type == SpriteType.ANIMATED && animationFrames != null) {
-            int frameIndex = (int) currentFrame;
-            if (frameIndex >= 0 && frameIndex < animationFrames.length) {
-                return animationFrames[frameIndex];
-            }
-        }
-        return textureName;
+        return pool.getCurrentTexture(slot());
     }
     
     public void setAnimation(String[] frames, double frameRate, boolean looping) {
-        this.animationFrames = frames.clone();
-        this.frameRate = frameRate;
-        this.looping = looping;
-        this.currentFrame = 0.0;
-        this.type = SpriteType.ANIMATED;
+        pool.setAnimation(slot(), frames, frameRate, looping);
     }
     
     public double distanceToCamera(Vector2D cameraPosition) {
-        return position.distanceTo(cameraPosition);
+        return Math.hypot(getX() - cameraPosition.x, getY() - cameraPosition.y);
     }
     
     public int getId() { return id; }
-    public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public int getSlot() { return slot; }
+    public boolean isValid() { return slot >= 0; }
+    
+    public String getName() { return pool.getName(slot()); }
+    public void setName(String name) { pool.setName(slot(), name); }
     
-    public Vector2D getPosition() { return new Vector2D(position); }
-    public void setPosition(Vector2D position) { this.position = new Vector2D(position); }
+    public Vector2D getPosition() { return new Vector2D(getX(), getY()); }
+    public double getX() { return pool.getX(slot()); }
+    public double getY() { return pool.getY(slot()); }
+    public void setPosition(Vector2D position) { pool.setPosition(slot(), position.x, position.y); }
+    public void setPosition(double x, double y) { pool.setPosition(slot(), x, y); }
     
-    public double getHeight() { return height; }
-    public void setHeight(double height) { this.height = height; }
+    // Высота над полом сектора
+    public double getHeight() { return pool.getElevation(slot()); }
+    public void setHeight(double height) { pool.setElevation(slot(), height); }
     
-    public double getWidth() { return width; }
-    public void setWidth(double width) { this.width = width; }
+    // Ширина спрайта в мире
+    public double getWidth() { return pool.getWidth(slot()); }
+    public void setWidth(double width) { pool.setWidth(slot(), width); }
     
-    public double getSpriteHeight() { return spriteHeight; }
-    public void setSpriteHeight(double spriteHeight) { this.spriteHeight = spriteHeight; }
+    // Высота спрайта в мире
+    public double getSpriteHeight() { return pool.getHeight(slot()); }
+    public void setSpriteHeight(double spriteHeight) { pool.setHeight(slot(), spriteHeight); }
     
-    public String getTextureName() { return textureName; }
-    public void setTextureName(String textureName) { this.textureName = textureName; }
+    public String getTextureName() { return pool.getTexture(slot()); }
+    public void setTextureName(String textureName) { pool.setTexture(slot(), textureName); }
     
-    public SpriteType getType() { return type; }
-    public void setType(SpriteType type) { this.type = type; }
+    public SpriteType getType() { return pool.getType(slot()); }
+    public void setType(SpriteType type) { pool.setType(slot(), type); }
     
-    public boolean isVisible() { return visible; }
-    public void setVisible(boolean visible) { this.visible = visible; }
+    public boolean isVisible() { return pool.hasFlags(slot(), SpritePool.VISIBLE); }
+    public void setVisible(boolean visible) { pool.setFlag(slot(), SpritePool.VISIBLE, visible); }
     
-    public boolean isActive() { return active; }
-    public void setActive(boolean active) { this.active = active; }
+    public boolean isActive() { return pool.hasFlags(slot(), SpritePool.ACTIVE); }
+    public void setActive(boolean active) { pool.setFlag(slot(), SpritePool.ACTIVE, active); }
     
-    public Sector getCurrentSector() { return currentSector; }
-    public void setCurrentSector(Sector currentSector) { this.currentSector = currentSector; }
+    // Сектор меняет SpriteManager при обновлении, вместе со списком спрайтов сектора
+    public Sector getCurrentSector() { return pool.getSector(slot()); }
     
     @Override
     public String toString() {
+        if (slot < 0) {
+            return String.format("Sprite(id: %d, destroyed)", id);
+        }
         return String.format("Sprite(id: %d, name: %s, pos: %s, texture: %s)", 
-                           id, name, position, getCurrentTextureName());
+                           id, getName(), getPosition(), getCurrentTextureName());
     }
     
     // Типы спрайтов
@@ -0,0 +1,407 @@
+package com.arce.entities;
+
+import com.arce.world.Sector;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * Хранилище спрайтов в параллельных массивах. Спрайт - номер слота; живые спрайты всегда
+ * занимают слоты [0, size()): при освобождении на место дыры переносится последний спрайт,
+ * а его ручка получает новый номер. Номер слота поэтому меняется - хранить надо ручку Sprite.
+ * Спрайты одного сектора связаны в двусвязный список прямо в массивах пула,
+ * так что ни обновление, ни обход сектора ничего не выделяют.
+ */
+public final class SpritePool {
+    public static final int ALIVE = 1;
+    public static final int VISIBLE = 1 << 1;
+    public static final int ACTIVE = 1 << 2;
+    public static final int ANIMATED = 1 << 3;
+    public static final int LOOPING = 1 << 4;
+    
+    public static final int NO_TEXTURE = -1;
+    
+    private static final int NONE = -1;
+    private static final int ANIMATING = ALIVE | ACTIVE | ANIMATED;
+    
+    private int capacity;
+    private int size;
+    private int nextId = 1;
+    
+    private int[] id;
+    private int[] flags;
+    private double[] x;
+    private double[] y;
+    private double[] elevation;     // высота над полом сектора
+    private double[] width;
+    private double[] height;
+    private double[] frame;
+    private double[] frameRate;
+    private String[] name;
+    private String[] texture;
+    private String[][] frames;
+    // Номера текстур, разрешенные из имен один раз при их установке
+    private int[] textureHandle;
+    private int[][] frameHandles;
+    private ToIntFunction<String> textureResolver;
+    private Sprite.SpriteType[] type;
+    private Sector[] sector;
+    private Sprite[] handle;
+    
+    // Списки спрайтов по секторам
+    private int[] next;
+    private int[] prev;
+    private int[] sectorHead = new int[0];
+    
+    public SpritePool(int initialCapacity) {
+        capacity = Math.max(1, initialCapacity);
+        id = new int[capacity];
+        flags = new int[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        elevation = new double[capacity];
+        width = new double[capacity];
+        height = new double[capacity];
+        frame = new double[capacity];
+        frameRate = new double[capacity];
+        name = new String[capacity];
+        texture = new String[capacity];
+        frames = new String[capacity][];
+        textureHandle = new int[capacity];
+        frameHandles = new int[capacity][];
+        type = new Sprite.SpriteType[capacity];
+        sector = new Sector[capacity];
+        handle = new Sprite[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+    }
+    
+    private void grow() {
+        capacity *= 2;
+        id = Arrays.copyOf(id, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        elevation = Arrays.copyOf(elevation, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        frame = Arrays.copyOf(frame, capacity);
+        frameRate = Arrays.copyOf(frameRate, capacity);
+        name = Arrays.copyOf(name, capacity);
+        texture = Arrays.copyOf(texture, capacity);
+        frames = Arrays.copyOf(frames, capacity);
+        textureHandle = Arrays.copyOf(textureHandle, capacity);
+        frameHandles = Arrays.copyOf(frameHandles, capacity);
+        type = Arrays.copyOf(type, capacity);
+        sector = Arrays.copyOf(sector, capacity);
+        handle = Arrays.copyOf(handle, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+    }
+    
+    /**
+     * Занимает слот под новый спрайт и возвращает его номер. Размеры по умолчанию 32x32.
+     */
+    public int allocate(String spriteName, double spriteX, double spriteY, String textureName, Sprite.SpriteType spriteType) {
+        if (size == capacity) {
+            grow();
+        }
+        int slot = size++;
+        
+        id[slot] = nextId++;
+        flags[slot] = ALIVE | VISIBLE | ACTIVE | LOOPING;
+        x[slot] = spriteX;
+        y[slot] = spriteY;
+        elevation[slot] = 0.0;
+        width[slot] = 32.0;
+        height[slot] = 32.0;
+        frame[slot] = 0.0;
+        frameRate[slot] = 1.0;
+        name[slot] = spriteName;
+        texture[slot] = textureName;
+        frames[slot] = null;
+        textureHandle[slot] = resolve(textureName);
+        frameHandles[slot] = null;
+        type[slot] = spriteType;
+        sector[slot] = null;
+        next[slot] = NONE;
+        prev[slot] = NONE;
+        handle[slot] = new Sprite(this, slot, id[slot]);
+        return slot;
+    }
+    
+    /**
+     * Освобождает слот. Спрайт убирается из списка сектора, а его объект-ручка становится недействительным.
+     * Последний живой спрайт переезжает в освободившийся слот.
+     */
+    public void free(int slot) {
+        if (!isAlive(slot)) {
+            return;
+        }
+        unlink(slot);
+        handle[slot].detach();
+        
+        int last = --size;
+        if (slot != last) {
+            moveSlot(last, slot);
+        }
+        clearSlot(last);
+    }
+    
+    // Переносит спрайт со всеми полями; соседи по списку сектора и ручка узнают новый номер
+    private void moveSlot(int from, int to) {
+        id[to] = id[from];
+        flags[to] = flags[from];
+        x[to] = x[from];
+        y[to] = y[from];
+        elevation[to] = elevation[from];
+        width[to] = width[from];
+        height[to] = height[from];
+        frame[to] = frame[from];
+        frameRate[to] = frameRate[from];
+        name[to] = name[from];
+        texture[to] = texture[from];
+        frames[to] = frames[from];
+        textureHandle[to] = textureHandle[from];
+        frameHandles[to] = frameHandles[from];
+        type[to] = type[from];
+        sector[to] = sector[from];
+        handle[to] = handle[from];
+        next[to] = next[from];
+        prev[to] = prev[from];
+        
+        if (prev[to] != NONE) {
+            next[prev[to]] = to;
+        } else {
+            int sectorIndex = sector[to] != null ? sector[to].getIndex() : NONE;
+            if (sectorIndex >= 0 && sectorIndex < sectorHead.length && sectorHead[sectorIndex] == from) {
+                sectorHead[sectorIndex] = to;
+            }
+        }
+        if (next[to] != NONE) {
+            prev[next[to]] = to;
+        }
+        
+        handle[to].relocate(to);
+    }
+    
+    private void clearSlot(int slot) {
+        flags[slot] = 0;
+        name[slot] = null;
+        texture[slot] = null;
+        frames[slot] = null;
+        frameHandles[slot] = null;
+        type[slot] = null;
+        sector[slot] = null;
+        handle[slot] = null;
+        next[slot] = NONE;
+        prev[slot] = NONE;
+    }
+    
+    public void clear() {
+        for (int slot = 0; slot < size; slot++) {
+            handle[slot].detach();
+        }
+        Arrays.fill(flags, 0, size, 0);
+        Arrays.fill(name, 0, size, null);
+        Arrays.fill(texture, 0, size, null);
+        Arrays.fill(frames, 0, size, null);
+        Arrays.fill(frameHandles, 0, size, null);
+        Arrays.fill(type, 0, size, null);
+        Arrays.fill(sector, 0, size, null);
+        Arrays.fill(handle, 0, size, null);
+        Arrays.fill(sectorHead, NONE);
+        size = 0;
+    }
+    
+    /**
+     * Продвигает анимацию всех активных анимированных спрайтов.
+     */
+    public void animate(double deltaTime) {
+        animate(0, size, deltaTime);
+    }
+    
+    /**
+     * То же для слотов [from, to). Непересекающиеся диапазоны можно обновлять из разных потоков.
+     */
+    public void animate(int from, int to, double deltaTime) {
+        for (int slot = from; slot < to; slot++) {
+            if ((flags[slot] & ANIMATING) == ANIMATING) {
+                advanceFrame(slot, deltaTime);
+            }
+        }
+    }
+    
+    void advanceFrame(int slot, double deltaTime) {
+        int frameCount = frames[slot].length;
+        double value = frame[slot] + frameRate[slot] * deltaTime;
+        if (value >= frameCount) {
+            value = (flags[slot] & LOOPING) != 0 ? 0.0 : frameCount - 1;
+        }
+        frame[slot] = value;
+    }
+    
+    public String getCurrentTexture(int slot) {
+        if ((flags[slot] & ANIMATED) != 0) {
+            int frameIndex = (int) frame[slot];
+            String[] animation = frames[slot];
+            if (frameIndex >= 0 && frameIndex < animation.length) {
+                return animation[frameIndex];
+            }
+        }
+        return texture[slot];
+    }
+    
+    /**
+     * Номер текстуры текущего кадра или NO_TEXTURE, если разрешителя нет - тогда рендер ищет по имени.
+     */
+    public int getCurrentTextureHandle(int slot) {
+        if ((flags[slot] & ANIMATED) != 0) {
+            int frameIndex = (int) frame[slot];
+            int[] animation = frameHandles[slot];
+            if (frameIndex >= 0 && frameIndex < animation.length) {
+                return animation[frameIndex];
+            }
+        }
+        return textureHandle[slot];
+    }
+    
+    /**
+     * Задает перевод имен текстур в номера и сразу разрешает имена всех живых спрайтов.
+     */
+    public void setTextureResolver(ToIntFunction<String> resolver) {
+        this.textureResolver = resolver;
+        for (int slot = 0; slot < size; slot++) {
+            textureHandle[slot] = resolve(texture[slot]);
+            frameHandles[slot] = resolveAll(frames[slot]);
+        }
+    }
+    
+    private int resolve(String textureName) {
+        return textureResolver != null && textureName != null ? textureResolver.applyAsInt(textureName) : NO_TEXTURE;
+    }
+    
+    private int[] resolveAll(String[] names) {
+        if (names == null) {
+            return null;
+        }
+        int[] result = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = resolve(names[i]);
+        }
+        return result;
+    }
+    
+    void setAnimation(int slot, String[] animationFrames, double rate, boolean looping) {
+        frames[slot] = animationFrames.clone();
+        frameHandles[slot] = resolveAll(frames[slot]);
+        frameRate[slot] = rate;
+        frame[slot] = 0.0;
+        type[slot] = Sprite.SpriteType.ANIMATED;
+        setFlag(slot, LOOPING, looping);
+        setFlag(slot, ANIMATED, true);
+    }
+    
+    void setType(int slot, Sprite.SpriteType spriteType) {
+        type[slot] = spriteType;
+        setFlag(slot, ANIMATED, spriteType == Sprite.SpriteType.ANIMATED && frames[slot] != null);
+    }
+    
+    void setFlag(int slot, int flag, boolean value) {
+        flags[slot] = value ? flags[slot] | flag : flags[slot] & ~flag;
+    }
+    
+    /**
+     * Переносит спрайт в список другого сектора. Сектора без номера на карте списков не имеют.
+     */
+    public void setSector(int slot, Sector newSector) {
+        if (sector[slot] == newSector) {
+            return;
+        }
+        unlink(slot);
+        sector[slot] = newSector;
+        
+        int sectorIndex = newSector != null ? newSector.getIndex() : NONE;
+        if (sectorIndex < 0) {
+            return;
+        }
+        if (sectorIndex >= sectorHead.length) {
+            int oldLength = sectorHead.length;
+            sectorHead = Arrays.copyOf(sectorHead, Math.max(sectorIndex + 1, oldLength * 2));
+            Arrays.fill(sectorHead, oldLength, sectorHead.length, NONE);
+        }
+        
+        int head = sectorHead[sectorIndex];
+        next[slot] = head;
+        prev[slot] = NONE;
+        if (head != NONE) {
+            prev[head] = slot;
+        }
+        sectorHead[sectorIndex] = slot;
+    }
+    
+    private void unlink(int slot) {
+        Sector oldSector = sector[slot];
+        int sectorIndex = oldSector != null ? oldSector.getIndex() : NONE;
+        if (sectorIndex < 0 || sectorIndex >= sectorHead.length) {
+            return;
+        }
+        
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            sectorHead[sectorIndex] = next[slot];
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        }
+        next[slot] = NONE;
+        prev[slot] = NONE;
+    }
+    
+    /**
+     * Первый спрайт сектора или -1. Дальше по списку - {@link #nextInSector(int)}.
+     */
+    public int firstInSector(Sector target) {
+        int sectorIndex = target != null ? target.getIndex() : NONE;
+        return sectorIndex >= 0 && sectorIndex < sectorHead.length ? sectorHead[sectorIndex] : NONE;
+    }
+    
+    public int nextInSector(int slot) {
+        return next[slot];
+    }
+    
+    public boolean isAlive(int slot) { return slot >= 0 && slot < size && (flags[slot] & ALIVE) != 0; }
+    public boolean hasFlags(int slot, int mask) { return (flags[slot] & mask) == mask; }
+    
+    // Спрайт рисуется, если он видим; активность на отрисовку не влияет. Общее правило для всех путей рендера
+    public boolean isDrawable(int slot) { return (flags[slot] & (ALIVE | VISIBLE)) == (ALIVE | VISIBLE); }
+    // Живые спрайты - слоты [0, size())
+    public int size() { return size; }
+    
+    public int getId(int slot) { return id[slot]; }
+    public Sprite getHandle(int slot) { return handle[slot]; }
+    public double getX(int slot) { return x[slot]; }
+    public double getY(int slot) { return y[slot]; }
+    public double getElevation(int slot) { return elevation[slot]; }
+    public double getWidth(int slot) { return width[slot]; }
+    public double getHeight(int slot) { return height[slot]; }
+    public String getName(int slot) { return name[slot]; }
+    public String getTexture(int slot) { return texture[slot]; }
+    public Sprite.SpriteType getType(int slot) { return type[slot]; }
+    public Sector getSector(int slot) { return sector[slot]; }
+    
+    void setPosition(int slot, double newX, double newY) {
+        x[slot] = newX;
+        y[slot] = newY;
+    }
+    
+    void setElevation(int slot, double value) { elevation[slot] = value; }
+    void setWidth(int slot, double value) { width[slot] = value; }
+    void setHeight(int slot, double value) { height[slot] = value; }
+    void setName(int slot, String value) { name[slot] = value; }
+    void setTexture(int slot, String value) {
+        texture[slot] = value;
+        textureHandle[slot] = resolve(value);
+    }
+}
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.arce.math;
 
 public class Line2D {
+    public static final double NO_INTERSECTION = -1.0;
+    
     public Vector2D start, end;
     
     public Line2D(Vector2D start, Vector2D end) {
@@ -50,24 +52,61 @@ public class Line2D {
     }
     
     public IntersectionResult intersectRay(Ray2D ray) {
-        Vector2D dir = getDirection();
-        Vector2D toStart = start.subtract(ray.origin);
+        double t = intersectRayDistance(ray.origin.x, ray.origin.y, ray.direction.x, ray.direction.y,
+                                        start.x, start.y, end.x, end.y);
+        
+        if (t != NO_INTERSECTION) {
+            Vector2D point = ray.origin.add(ray.direction.multiply(t));
+            return new IntersectionResult(point, t, this);
+        }
         
-        double cross = ray.direction.cross(dir);
+        return null;
+    }
+    
+    // То же самое, что intersectRay, но на примитивах и без аллокаций.
+    // Возвращает расстояние вдоль луча или NO_INTERSECTION
+    public static double intersectRayDistance(double originX, double originY, double dirX, double dirY,
+                                              double x1, double y1, double x2, double y2) {
+        double segX = x2 - x1;
+        double segY = y2 - y1;
+        double toStartX = x1 - originX;
+        double toStartY = y1 - originY;
+        
+        double cross = dirX * segY - dirY * segX;
         
         if (Math.abs(cross) < 0.0001) {
-            return null;
+            return NO_INTERSECTION;
         }
         
-        double t = toStart.cross(dir) / cross;
-        double u = toStart.cross(ray.direction) / cross;
+        double t = (toStartX * segY - toStartY * segX) / cross;
+        double u = (toStartX * dirY - toStartY * dirX) / cross;
         
         if (t >= 0 && u >= 0 && u <= 1) {
-            Vector2D point = ray.origin.add(ray.direction.multiply(t));
-            return new IntersectionResult(point, t, this);
+            return t;
         }
         
-        return null;
+        return NO_INTERSECTION;
+    }
+    
+    public static double whichSide(double x1, double y1, double x2, double y2, double px, double py) {
+        return (x2 - x1) * (py - y1) - (y2 - y1) * (px - x1);
+    }
+    
+    // Квадрат расстояния от точки до отрезка
+    public static double distanceSquaredToSegment(double px, double py, double x1, double y1, double x2, double y2) {
+        double segX = x2 - x1;
+        double segY = y2 - y1;
+        double lengthSquared = segX * segX + segY * segY;
+        
+        double t = 0.0;
+        if (lengthSquared > 0) {
+            t = ((px - x1) * segX + (py - y1) * segY) / lengthSquared;
+            t = Math.max(0.0, Math.min(1.0, t));
+        }
+        
+        double dx = x1 + segX * t - px;
+        double dy = y1 + segY * t - py;
+        return dx * dx + dy * dy;
     }
     
     @Override
@@ -1,6 +1,7 @@
 package com.arce.player;
 
 import com.arce.math.Vector2D;
+import com.arce.world.CircleMover;
 import com.arce.world.GameMap;
 import com.arce.world.Sector;
 import com.arce.render.Camera;
@@ -21,9 +22,20 @@ public class Player {
     private double turnSpeed;
     private double strafeSpeed;
     
-    private Vector2D velocity;
+    // Смещение за текущий шаг, без промежуточных векторов
+    private double velocityX;
+    private double velocityY;
     private boolean onGround;
     
+    private final CircleMover mover = new CircleMover();
+    
+    // Положение на начало текущего шага симуляции - для интерполяции между шагами при рендере
+    private double previousX;
+    private double previousY;
+    private double previousAngle;
+    private double previousHeight;
+    private final Camera renderCamera;
+    
     public Player(Vector2D startPosition, double startAngle, GameMap gameMap, 
                   int screenWidth, int screenHeight) {
         this.logger = new EngineLogger(Player.class);
@@ -37,62 +49,62 @@ public class Player {
         this.turnSpeed = Math.toRadians(120);
         this.strafeSpeed = 150.0;
         
-        this.velocity = new Vector2D(0, 0);
         this.onGround = true;
         
         this.camera = new Camera(startPosition, startAngle, screenWidth, screenHeight);
         
-        updateCameraHeight();
-        
         this.currentSector = gameMap.findSector(startPosition);
+        this.renderCamera = new Camera(startPosition, startAngle, screenWidth, screenHeight);
+        
+        updateCameraHeight();
+        savePreviousState();
         
         logger.logSuccess("Player created at " + startPosition + ", sector: " + 
                          (currentSector != null ? currentSector.getId() : "none"));
     }
     
     public void update(boolean[] keys, double deltaTime) {
+        savePreviousState();
         handleInput(keys, deltaTime);
         updatePhysics(deltaTime);
         updateCamera();
     }
     
     private void handleInput(boolean[] keys, double deltaTime) {
-        Vector2D movement = new Vector2D(0, 0);
+        double forward = 0.0;
+        double strafe = 0.0;
         
         if (keys[KeyEvent.VK_W] || keys[KeyEvent.VK_UP]) {
-            Vector2D forward = camera.getDirection().multiply(moveSpeed * deltaTime);
-            movement = movement.add(forward);
+            forward += moveSpeed * deltaTime;
         }
         if (keys[KeyEvent.VK_S] || keys[KeyEvent.VK_DOWN]) {
-            Vector2D backward = camera.getDirection().multiply(-moveSpeed * deltaTime);
-            movement = movement.add(backward);
+            forward -= moveSpeed * deltaTime;
         }
         
         if (keys[KeyEvent.VK_A]) {
-            Vector2D left = camera.getDirection().perpendicular().multiply(-strafeSpeed * deltaTime);
-            movement = movement.add(left);
+            strafe -= strafeSpeed * deltaTime;
         }
         if (keys[KeyEvent.VK_D]) {
-            Vector2D right = camera.getDirection().perpendicular().multiply(strafeSpeed * deltaTime);
-            movement = movement.add(right);
+            strafe += strafeSpeed * deltaTime;
         }
         
+        // Направление до поворота на этом шаге; стрейф - вдоль перпендикуляра (-dirY, dirX)
+        double directionX = camera.getDirectionX();
+        double directionY = camera.getDirectionY();
+        velocityX = directionX * forward - directionY * strafe;
+        velocityY = directionY * forward + directionX * strafe;
+        
         if (keys[KeyEvent.VK_LEFT] || keys[KeyEvent.VK_Q]) {
             camera.rotate(-turnSpeed * deltaTime);
         }
         if (keys[KeyEvent.VK_RIGHT] || keys[KeyEvent.VK_E]) {
             camera.rotate(turnSpeed * deltaTime);
         }
-        
-        velocity = movement;
     }
     
     private void updatePhysics(double deltaTime) {
-        if (velocity.lengthSquared() > 0.001) {
-            Vector2D newPosition = attemptMove(camera.getPosition(), velocity);
-            camera.setPosition(newPosition);
-            
-            Sector newSector = gameMap.findSector(newPosition);
+        if (velocityX * velocityX + velocityY * velocityY > 0.001) {
+            Sector newSector = attemptMove(velocityX, velocityY);
             if (newSector != null && newSector != currentSector) {
                 logger.logDebug("Player moved to sector: " + newSector.getId());
                 currentSector = newSector;
@@ -101,45 +113,20 @@ public class Player {
         }
     }
     
-    private Vector2D attemptMove(Vector2D currentPos, Vector2D movement) {
-        Vector2D newPosition = currentPos.add(movement);
-        
-        Vector2D testX = new Vector2D(newPosition.x, currentPos.y);
-        if (checkCollision(testX)) {
-            newPosition = new Vector2D(currentPos.x, newPosition.y);
-        }
+    /**
+     * Перемещение круга игрока со скольжением вдоль стен. Позиция вне секторов не принимается.
+     * Возвращает сектор новой позиции или null, если игрок остался на месте.
+     */
+    private Sector attemptMove(double dx, double dy) {
+        mover.move(gameMap.requireBlockMap(), camera.getX(), camera.getY(), radius, dx, dy);
         
-        Vector2D testY = new Vector2D(newPosition.x, currentPos.y);
-        if (checkCollision(testY)) {
-            newPosition = new Vector2D(newPosition.x, currentPos.y);
+        Sector newSector = gameMap.findSector(mover.x, mover.y, currentSector);
+        if (newSector == null) {
+            return null;
         }
         
-        if (checkCollision(newPosition)) {
-            return currentPos;
-        }
-        
-        return newPosition;
-    }
-    
-    private boolean checkCollision(Vector2D position) {
-        for (int angle = 0; angle < 360; angle += 45) {
-            double radians = Math.toRadians(angle);
-            Vector2D checkPoint = position.add(new Vector2D(
-                Math.cos(radians) * radius,
-                Math.sin(radians) * radius
-            ));
-            
-            if (isPointInWall(checkPoint)) {
-                return true;
-            }
-        }
-        
-        return false;
-    }
-    
-    private boolean isPointInWall(Vector2D point) {
-        Sector sector = gameMap.findSector(point);
-        return sector == null;
+        camera.setPosition(mover.x, mover.y);
+        return newSector;
     }
     
     private void updateCamera() {
@@ -158,11 +145,44 @@ public class Player {
         camera.setAngle(angle);
         currentSector = gameMap.findSector(position);
         updateCameraHeight();
+        savePreviousState();
         
         logger.logInfo("Player teleported to " + position + 
                       ", sector: " + (currentSector != null ? currentSector.getId() : "none"));
     }
     
+    private void savePreviousState() {
+        previousX = camera.getX();
+        previousY = camera.getY();
+        previousAngle = camera.getAngle();
+        previousHeight = camera.getHeight();
+    }
+    
+    /**
+     * Камера для рендера: положение между предыдущим и текущим шагом симуляции.
+     * alpha - доля шага, прошедшая после последнего обновления (0..1).
+     */
+    public Camera getRenderCamera(double alpha) {
+        if (renderCamera.getScreenWidth() != camera.getScreenWidth()
+                || renderCamera.getScreenHeight() != camera.getScreenHeight()) {
+            renderCamera.setScreenSize(camera.getScreenWidth(), camera.getScreenHeight());
+        }
+        if (renderCamera.getFov() != camera.getFov()) {
+            renderCamera.setFov(camera.getFov());
+        }
+        
+        // Поворот интерполируется по кратчайшей дуге
+        double turn = camera.getAngle() - previousAngle;
+        if (turn > Math.PI) turn -= Math.PI * 2;
+        if (turn < -Math.PI) turn += Math.PI * 2;
+        
+        renderCamera.setPosition(previousX + (camera.getX() - previousX) * alpha,
+                                 previousY + (camera.getY() - previousY) * alpha);
+        renderCamera.setAngle(previousAngle + turn * alpha);
+        renderCamera.setHeight(previousHeight + (camera.getHeight() - previousHeight) * alpha);
+        return renderCamera;
+    }
+    
     public void setMoveSpeed(double moveSpeed) {
         this.moveSpeed = moveSpeed;
         logger.logDebug("Move speed set to: " + moveSpeed);
@@ -183,7 +203,7 @@ public class Player {
             camera.getPosition(),
             camera.getAngle(),
             currentSector,
-            velocity,
+            getVelocity(),
             onGround
         );
     }
@@ -195,7 +215,7 @@ public class Player {
     public double getRadius() { return radius; }
     public double getHeight() { return height; }
     public double getEyeHeight() { return eyeHeight; }
-    public Vector2D getVelocity() { return velocity; }
+    public Vector2D getVelocity() { return new Vector2D(velocityX, velocityY); }
     public boolean isOnGround() { return onGround; }
     
     public void setRadius(double radius) { this.radius = radius; }
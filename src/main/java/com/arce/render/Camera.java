@@ -4,57 +4,109 @@ import com.arce.math.Vector2D;
 import com.arce.math.Ray2D;
 
 public class Camera {
-    private Vector2D position;
+    private double x;
+    private double y;
     private double angle;
     private double fov;
     private int screenWidth;
     private int screenHeight;
     private double height;
     
-    private Vector2D direction;
-    private Vector2D cameraPlane;
+    private double directionX;
+    private double directionY;
+    private double planeX;
+    private double planeY;
     private double halfFov;
     
+    // Таблицы по колонкам в системе координат камеры (вперед, вправо), не зависят от поворота.
+    // Пересчитываются только при смене FOV или ширины экрана.
+    private double[] columnForward;
+    private double[] columnSide;
+    
     public Camera(Vector2D position, double angle, int screenWidth, int screenHeight) {
-        this.position = new Vector2D(position);
+        this.x = position.x;
+        this.y = position.y;
         this.angle = angle;
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
         this.fov = Math.toRadians(90);
         this.height = 32.0;
         
-        updateDerivedValues();
+        rebuildColumnTables();
     }
     
-    private void updateDerivedValues() {
-        this.halfFov = fov / 2.0;
-        this.direction = new Vector2D(Math.cos(angle), Math.sin(angle));
+    private void updateDirection() {
+        this.directionX = Math.cos(angle);
+        this.directionY = Math.sin(angle);
         
         double planeLength = Math.tan(halfFov);
-        this.cameraPlane = direction.perpendicular().multiply(planeLength);
+        this.planeX = -directionY * planeLength;
+        this.planeY = directionX * planeLength;
     }
     
-    public Ray2D createRay(int screenX) {
-        double cameraX = 2.0 * screenX / (screenWidth - 1) - 1.0;
+    private void rebuildColumnTables() {
+        this.halfFov = fov / 2.0;
+        double planeLength = Math.tan(halfFov);
         
-        Vector2D rayDirection = direction.add(cameraPlane.multiply(cameraX));
+        if (columnForward == null || columnForward.length != screenWidth) {
+            columnForward = new double[screenWidth];
+            columnSide = new double[screenWidth];
+        }
         
-        rayDirection = rayDirection.normalize();
+        // Нормализованное направление луча колонки: (1, cameraX * tan(fov/2)) / длина
+        for (int column = 0; column < screenWidth; column++) {
+            double cameraX = screenWidth > 1 ? 2.0 * column / (screenWidth - 1) - 1.0 : 0.0;
+            double side = cameraX * planeLength;
+            double invLength = 1.0 / Math.sqrt(1.0 + side * side);
+            
+            columnForward[column] = invLength;
+            columnSide[column] = side * invLength;
+        }
         
-        return new Ray2D(position, rayDirection);
+        updateDirection();
+    }
+    
+    /**
+     * Направление луча колонки в мире - поворот табличного направления на угол камеры.
+     */
+    public double getRayDirX(int column) {
+        return directionX * columnForward[column] - directionY * columnSide[column];
+    }
+    
+    public double getRayDirY(int column) {
+        return directionY * columnForward[column] + directionX * columnSide[column];
+    }
+    
+    /**
+     * Косинус угла между лучом колонки и направлением взгляда - коррекция "рыбьего глаза".
+     */
+    public double getCosCorrection(int column) {
+        return columnForward[column];
+    }
+    
+    /**
+     * Множитель проекции: высота на экране = мировая высота * scale / перпендикулярное расстояние.
+     */
+    public double getProjectionScale() {
+        return screenHeight;
+    }
+    
+    public Ray2D createRay(int screenX) {
+        return new Ray2D(new Vector2D(x, y), new Vector2D(getRayDirX(screenX), getRayDirY(screenX)));
     }
     
     public Ray2D createRay(double rayAngle) {
-        return new Ray2D(position, rayAngle);
+        return new Ray2D(new Vector2D(x, y), rayAngle);
     }
     
     public void move(Vector2D delta) {
-        position = position.add(delta);
+        x += delta.x;
+        y += delta.y;
     }
     
     public void moveForward(double distance) {
-        Vector2D movement = direction.multiply(distance);
-        position = position.add(movement);
+        x += directionX * distance;
+        y += directionY * distance;
     }
     
     public void moveBackward(double distance) {
@@ -62,9 +114,8 @@ public class Camera {
     }
     
     public void strafeLeft(double distance) {
-        Vector2D leftDirection = direction.perpendicular().multiply(-1);
-        Vector2D movement = leftDirection.multiply(distance);
-        position = position.add(movement);
+        x += directionY * distance;
+        y -= directionX * distance;
     }
     
     public void strafeRight(double distance) {
@@ -76,17 +127,23 @@ public class Camera {
         while (angle > Math.PI * 2) angle -= Math.PI * 2;
         while (angle < 0) angle += Math.PI * 2;
         
-        updateDerivedValues();
+        updateDirection();
     }
     
     public void setAngle(double angle) {
         this.angle = angle;
-        updateDerivedValues();
+        updateDirection();
     }
     
-    public Vector2D getPosition() { return new Vector2D(position); }
+    public Vector2D getPosition() { return new Vector2D(x, y); }
     public void setPosition(Vector2D position) { 
-        this.position = new Vector2D(position); 
+        this.x = position.x;
+        this.y = position.y;
+    }
+    
+    public void setPosition(double x, double y) {
+        this.x = x;
+        this.y = y;
     }
     
     public double getAngle() { return angle; }
@@ -94,26 +151,39 @@ public class Camera {
     public double getFov() { return fov; }
     public void setFov(double fov) { 
         this.fov = Math.max(Math.toRadians(30), Math.min(Math.toRadians(120), fov));
-        updateDerivedValues();
+        rebuildColumnTables();
     }
     
     public double getHeight() { return height; }
     public void setHeight(double height) { this.height = height; }
     
-    public Vector2D getDirection() { return new Vector2D(direction); }
-    public Vector2D getCameraPlane() { return new Vector2D(cameraPlane); }
+    public Vector2D getDirection() { return new Vector2D(directionX, directionY); }
+    public Vector2D getCameraPlane() { return new Vector2D(planeX, planeY); }
+    
+    // Доступ без копирования векторов - для горячих циклов рендера
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getDirectionX() { return directionX; }
+    public double getDirectionY() { return directionY; }
+    public double getPlaneX() { return planeX; }
+    public double getPlaneY() { return planeY; }
     
     public int getScreenWidth() { return screenWidth; }
     public int getScreenHeight() { return screenHeight; }
     
     public void setScreenSize(int width, int height) {
+        boolean widthChanged = width != this.screenWidth;
         this.screenWidth = width;
         this.screenHeight = height;
+        
+        if (widthChanged) {
+            rebuildColumnTables();
+        }
     }
     
     @Override
     public String toString() {
         return String.format("Camera(pos: %s, angle: %.2f, fov: %.1f)", 
-                           position, Math.toDegrees(angle), Math.toDegrees(fov));
+                           getPosition(), Math.toDegrees(angle), Math.toDegrees(fov));
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.arce.render;
+
+/**
+ * Таблица освещения в духе COLORMAP из Doom: уровень яркости заранее посчитан
+ * для каждой пары (освещенность сектора, полоса расстояния) и ориентации стены.
+ * Результат - смещение строки ShadeTable, так что пиксель затеняется только чтением из таблиц.
+ */
+final class ColorMap {
+    static final int LIGHT_LEVELS = 32;
+    static final int DISTANCE_BANDS = 256;
+    static final double MAX_SHADE_DISTANCE = 200.0;
+    
+    private static final double MIN_DISTANCE_FACTOR = 0.2;
+    private static final double HORIZONTAL_DARKENING = 0.8;
+    private static final double BAND_SIZE = MAX_SHADE_DISTANCE / DISTANCE_BANDS;
+    private static final double INV_BAND_SIZE = 1.0 / BAND_SIZE;
+    
+    // [light][band][horizontal] -> смещение строки ShadeTable
+    private static final int[] LEVELS = new int[LIGHT_LEVELS * DISTANCE_BANDS * 2];
+    
+    static {
+        for (int light = 0; light < LIGHT_LEVELS; light++) {
+            double lightFactor = (double) light / (LIGHT_LEVELS - 1);
+            
+            for (int band = 0; band < DISTANCE_BANDS; band++) {
+                double distanceFactor = Math.max(MIN_DISTANCE_FACTOR, 1.0 - band * BAND_SIZE / MAX_SHADE_DISTANCE);
+                int index = (light * DISTANCE_BANDS + band) * 2;
+                
+                LEVELS[index] = ShadeTable.levelOffset(distanceFactor * lightFactor);
+                LEVELS[index + 1] = ShadeTable.levelOffset(distanceFactor * lightFactor * HORIZONTAL_DARKENING);
+            }
+        }
+    }
+    
+    private ColorMap() {
+    }
+    
+    /**
+     * Смещение строки ShadeTable для освещенности сектора 0-255 и расстояния до точки.
+     */
+    static int levelOffset(int sectorLight, double distance, boolean horizontal) {
+        int light = Math.max(0, Math.min(255, sectorLight)) * LIGHT_LEVELS >> 8;
+        int band = distance <= 0 ? 0 : (int) Math.min(DISTANCE_BANDS - 1, distance * INV_BAND_SIZE);
+        return LEVELS[(light * DISTANCE_BANDS + band) * 2 + (horizontal ? 1 : 0)];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,288 @@
+package com.arce.render;
+
+import com.arce.world.Sector;
+import com.arce.world.Wall;
+
+/**
+ * Результаты трассировки для всех колонок экрана в виде набора параллельных массивов.
+ * Принадлежит RayCaster и переиспользуется от кадра к кадру - массивы пересоздаются
+ * только при увеличении ширины экрана.
+ *
+ * Колонка заполняется в два этапа: сначала трассировщик записывает "сырые" попадания
+ * (порталы по возрастанию расстояния и ближайшую сплошную стену), затем resolve()
+ * проходит их от камеры, переходя из сектора в сектор через порталы, и считает
+ * верхние/нижние ступени и границы отсечения колонки.
+ */
+public class ColumnBuffer {
+    public static final int MAX_PORTALS = 16;
+    
+    private static final double TEXTURE_SIZE = 64.0;
+    private static final double MIN_PERP_DISTANCE = 0.1;
+    
+    // Сплошная стена, которой заканчивается колонка
+    public double[] distance;
+    public double[] perpDistance;
+    public int[] wallTop;
+    public int[] wallBottom;
+    public int[] wallHeight;
+    public double[] textureX;
+    public Wall[] hitWall;
+    public Sector[] sector;     // сектор перед стеной (последний сектор колонки)
+    
+    // Порталы колонки: индекс секции = x * MAX_PORTALS + i
+    public int[] portalCount;
+    public Wall[] portalWall;
+    public double[] portalDistance;
+    public double[] portalTextureX;
+    public Sector[] portalFront;
+    public Sector[] portalBack;
+    public int[] upperTop;
+    public int[] upperBottom;
+    public int[] lowerTop;
+    public int[] lowerBottom;
+    // Границы отсечения колонки после прохождения портала
+    public int[] clipTop;
+    public int[] clipBottom;
+    
+    private int width;
+    
+    public ColumnBuffer(int width) {
+        resize(width);
+    }
+    
+    public void resize(int newWidth) {
+        if (distance == null || distance.length < newWidth) {
+            distance = new double[newWidth];
+            perpDistance = new double[newWidth];
+            wallTop = new int[newWidth];
+            wallBottom = new int[newWidth];
+            wallHeight = new int[newWidth];
+            textureX = new double[newWidth];
+            hitWall = new Wall[newWidth];
+            sector = new Sector[newWidth];
+            
+            int sections = newWidth * MAX_PORTALS;
+            portalCount = new int[newWidth];
+            portalWall = new Wall[sections];
+            portalDistance = new double[sections];
+            portalTextureX = new double[sections];
+            portalFront = new Sector[sections];
+            portalBack = new Sector[sections];
+            upperTop = new int[sections];
+            upperBottom = new int[sections];
+            lowerTop = new int[sections];
+            lowerBottom = new int[sections];
+            clipTop = new int[sections];
+            clipBottom = new int[sections];
+        }
+        this.width = newWidth;
+    }
+    
+    public int getWidth() { return width; }
+    
+    public boolean hasHit(int x) {
+        return hitWall[x] != null;
+    }
+    
+    public boolean isPortal(int x) {
+        return hitWall[x] != null && hitWall[x].isPortal();
+    }
+    
+    public void beginColumn(int x, double maxDistance) {
+        hitWall[x] = null;
+        distance[x] = maxDistance;
+        portalCount[x] = 0;
+    }
+    
+    public void setSolidHit(int x, Wall wall, double hitDistance) {
+        hitWall[x] = wall;
+        distance[x] = hitDistance;
+    }
+    
+    /**
+     * Добавляет портал, сохраняя порядок по расстоянию. Если места нет,
+     * отбрасывается самый дальний. Возвращает false, если портал не поместился.
+     */
+    public boolean addPortalHit(int x, Wall wall, double hitDistance) {
+        int base = x * MAX_PORTALS;
+        int count = portalCount[x];
+        
+        if (count == MAX_PORTALS) {
+            if (hitDistance >= portalDistance[base + count - 1]) {
+                return false;
+            }
+            count--;
+        }
+        
+        int i = count;
+        while (i > 0 && portalDistance[base + i - 1] > hitDistance) {
+            portalWall[base + i] = portalWall[base + i - 1];
+            portalDistance[base + i] = portalDistance[base + i - 1];
+            i--;
+        }
+        portalWall[base + i] = wall;
+        portalDistance[base + i] = hitDistance;
+        portalCount[x] = count + 1;
+        return true;
+    }
+    
+    public boolean isPortalListFull(int x) {
+        return portalCount[x] == MAX_PORTALS;
+    }
+    
+    /**
+     * Проходит порталы колонки от камеры и проецирует ступени и конечную стену на экран.
+     */
+    public void resolve(int x, Camera camera, Sector cameraSector) {
+        int screenHeight = camera.getScreenHeight();
+        double projectionScale = camera.getProjectionScale();
+        double cameraHeight = camera.getHeight();
+        double rayDirX = camera.getRayDirX(x);
+        double rayDirY = camera.getRayDirY(x);
+        double cosAngle = camera.getCosCorrection(x);
+        
+        int base = x * MAX_PORTALS;
+        int count = portalCount[x];
+        int top = 0;
+        int bottom = screenHeight - 1;
+        Sector current = cameraSector;
+        int resolved = 0;
+        
+        for (int i = 0; i < count; i++) {
+            int s = base + i;
+            double hitDistance = portalDistance[s];
+            if (hitDistance >= distance[x]) {
+                break;
+            }
+            
+            Wall wall = portalWall[s];
+            Sector back = current != null ? wall.getOtherSector(current) : null;
+            if (current == null || back == null) {
+                // Портал не ведет из текущего сектора - рисуем его как обычную стену
+                hitWall[x] = wall;
+                distance[x] = hitDistance;
+                break;
+            }
+            
+            double projection = projectionScale / Math.max(MIN_PERP_DISTANCE, hitDistance * cosAngle);
+            int frontCeilingY = projectY(current.getCeilingHeight(), cameraHeight, projection, screenHeight);
+            int frontFloorY = projectY(current.getFloorHeight(), cameraHeight, projection, screenHeight);
+            int backCeilingY = projectY(back.getCeilingHeight(), cameraHeight, projection, screenHeight);
+            int backFloorY = projectY(back.getFloorHeight(), cameraHeight, projection, screenHeight);
+            
+            portalFront[s] = current;
+            portalBack[s] = back;
+            portalTextureX[s] = calculateTextureX(wall, camera.getX() + rayDirX * hitDistance,
+                                                  camera.getY() + rayDirY * hitDistance);
+            
+            // Верхняя ступень: потолок за порталом ниже текущего
+            upperTop[s] = Math.max(top, frontCeilingY);
+            upperBottom[s] = Math.min(bottom, backCeilingY - 1);
+            // Нижняя ступень: пол за порталом выше текущего
+            lowerTop[s] = Math.max(top, backFloorY + 1);
+            lowerBottom[s] = Math.min(bottom, frontFloorY);
+            
+            top = Math.max(top, Math.max(frontCeilingY, backCeilingY));
+            bottom = Math.min(bottom, Math.min(frontFloorY, backFloorY));
+            clipTop[s] = top;
+            clipBottom[s] = bottom;
+            
+            current = back;
+            resolved++;
+            
+            if (top > bottom) {
+                // Проем полностью закрыт ступенями - дальше ничего не видно
+                hitWall[x] = null;
+                distance[x] = hitDistance;
+                break;
+            }
+        }
+        
+        portalCount[x] = resolved;
+        resolveSolidWall(x, rayDirX, rayDirY, cosAngle, camera, resolved > 0 ? current : cameraSector,
+                         resolved > 0, top, bottom);
+    }
+    
+    private void resolveSolidWall(int x, double rayDirX, double rayDirY, double cosAngle, Camera camera,
+                                  Sector hitSector, boolean clipped, int clipTopY, int clipBottomY) {
+        int screenHeight = camera.getScreenHeight();
+        Wall wall = hitWall[x];
+        double hitDistance = distance[x];
+        
+        double perp = hitDistance * cosAngle;
+        perpDistance[x] = perp;
+        // Сектор, в котором заканчивается колонка - нужен и без попадания (пол/потолок до горизонта)
+        sector[x] = hitSector;
+        
+        if (wall == null || hitSector == null) {
+            wallHeight[x] = 0;
+            wallTop[x] = screenHeight / 2;
+            wallBottom[x] = screenHeight / 2;
+            textureX[x] = 0;
+            return;
+        }
+        
+        double floorHeight = hitSector.getFloorHeight();
+        double ceilingHeight = hitSector.getCeilingHeight();
+        
+        int top;
+        int bottom;
+        if (clipped) {
+            double projection = camera.getProjectionScale() / Math.max(MIN_PERP_DISTANCE, perp);
+            top = Math.max(clipTopY, projectY(ceilingHeight, camera.getHeight(), projection, screenHeight));
+            bottom = Math.min(clipBottomY, projectY(floorHeight, camera.getHeight(), projection, screenHeight));
+        } else if (perp > MIN_PERP_DISTANCE) {
+            double projectionHeight = camera.getProjectionScale() / perp;
+            
+            int projectedHeight = (int) ((ceilingHeight - floorHeight) * projectionHeight);
+            
+            double wallMidHeight = (floorHeight + ceilingHeight) / 2.0;
+            double verticalOffset = (camera.getHeight() - wallMidHeight) * projectionHeight;
+            
+            int wallCenter = screenHeight / 2 + (int) verticalOffset;
+            
+            top = wallCenter - projectedHeight / 2;
+            bottom = wallCenter + projectedHeight / 2;
+        } else {
+            top = 0;
+            bottom = screenHeight - 1;
+        }
+        
+        top = Math.max(0, top);
+        bottom = Math.min(screenHeight - 1, bottom);
+        
+        wallTop[x] = top;
+        wallBottom[x] = bottom;
+        wallHeight[x] = Math.max(1, bottom - top);
+        textureX[x] = calculateTextureX(wall, camera.getX() + rayDirX * hitDistance,
+                                        camera.getY() + rayDirY * hitDistance);
+    }
+    
+    // Экранная Y мировой высоты height на данном расстоянии (не ограничена экраном)
+    private static int projectY(double height, double cameraHeight, double projection, int screenHeight) {
+        double y = screenHeight / 2 + (cameraHeight - height) * projection;
+        if (y < -screenHeight) return -screenHeight;
+        if (y > 2 * screenHeight) return 2 * screenHeight;
+        return (int) y;
+    }
+    
+    private static double calculateTextureX(Wall wall, double hitX, double hitY) {
+        double startX = wall.getLine().start.x;
+        double startY = wall.getLine().start.y;
+        double wallDirX = wall.getLine().end.x - startX;
+        double wallDirY = wall.getLine().end.y - startY;
+        
+        double lengthSquared = wallDirX * wallDirX + wallDirY * wallDirY;
+        double t = ((hitX - startX) * wallDirX + (hitY - startY) * wallDirY) / lengthSquared;
+        t = Math.max(0.0, Math.min(1.0, t));
+        
+        double u = (t * Math.sqrt(lengthSquared)) % TEXTURE_SIZE;
+        if (u < 0) u += TEXTURE_SIZE;
+        return u;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ColumnBuffer(width: %d)", width);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.arce.render;
+
+import com.arce.core.managers.SpriteManager;
+import com.arce.entities.SpritePool;
+import com.arce.world.GameMap;
+import com.arce.world.Sector;
+
+import java.util.Arrays;
+
+/**
+ * Состояние мира, нужное для одного кадра: положение камеры и спрайты.
+ * Симуляция заполняет снимок и публикует его потоку рендера; после публикации снимок
+ * не меняется, пока рендер его не отдаст. Экземпляры переиспользуются, массивы только растут.
+ */
+public final class FrameSnapshot {
+    private GameMap gameMap;
+    private boolean topDown;
+    
+    private double cameraX;
+    private double cameraY;
+    private double cameraAngle;
+    private double cameraHeight;
+    private double cameraFov;
+    private Sector cameraSector;
+    
+    private int spriteCount;
+    private double[] spriteX = new double[16];
+    private double[] spriteY = new double[16];
+    private double[] spriteWidth = new double[16];
+    private double[] spriteHeight = new double[16];
+    private double[] spriteElevation = new double[16];
+    private String[] spriteTexture = new String[16];
+    private int[] spriteTextureHandle = new int[16];
+    private String[] spriteName = new String[16];
+    private Sector[] spriteSector = new Sector[16];
+    
+    /**
+     * Снимок без карты - рендер покажет экран ожидания.
+     */
+    public void captureEmpty() {
+        gameMap = null;
+        topDown = false;
+        cameraSector = null;
+        spriteCount = 0;
+    }
+    
+    public void capture(GameMap gameMap, Camera camera, Sector cameraSector, SpriteManager spriteManager, boolean topDown) {
+        this.gameMap = gameMap;
+        this.topDown = topDown;
+        
+        this.cameraX = camera.getX();
+        this.cameraY = camera.getY();
+        this.cameraAngle = camera.getAngle();
+        this.cameraHeight = camera.getHeight();
+        this.cameraFov = camera.getFov();
+        this.cameraSector = cameraSector;
+        
+        spriteCount = 0;
+        if (spriteManager != null) {
+            SpritePool pool = spriteManager.getPool();
+            for (int slot = 0, n = pool.size(); slot < n; slot++) {
+                if (pool.isDrawable(slot)) {
+                    addSprite(pool, slot);
+                }
+            }
+        }
+    }
+    
+    private void addSprite(SpritePool pool, int slot) {
+        if (spriteCount == spriteX.length) {
+            int capacity = spriteCount * 2;
+            spriteX = Arrays.copyOf(spriteX, capacity);
+            spriteY = Arrays.copyOf(spriteY, capacity);
+            spriteWidth = Arrays.copyOf(spriteWidth, capacity);
+            spriteHeight = Arrays.copyOf(spriteHeight, capacity);
+            spriteElevation = Arrays.copyOf(spriteElevation, capacity);
+            spriteTexture = Arrays.copyOf(spriteTexture, capacity);
+            spriteTextureHandle = Arrays.copyOf(spriteTextureHandle, capacity);
+            spriteName = Arrays.copyOf(spriteName, capacity);
+            spriteSector = Arrays.copyOf(spriteSector, capacity);
+        }
+        
+        spriteX[spriteCount] = pool.getX(slot);
+        spriteY[spriteCount] = pool.getY(slot);
+        spriteWidth[spriteCount] = pool.getWidth(slot);
+        spriteHeight[spriteCount] = pool.getHeight(slot);
+        spriteElevation[spriteCount] = pool.getElevation(slot);
+        spriteTexture[spriteCount] = pool.getCurrentTexture(slot);
+        spriteTextureHandle[spriteCount] = pool.getCurrentTextureHandle(slot);
+        spriteName[spriteCount] = pool.getName(slot);
+        spriteSector[spriteCount] = pool.getSector(slot);
+        spriteCount++;
+    }
+    
+    /**
+     * Переносит положение камеры снимка в камеру потока рендера.
+     */
+    public void applyTo(Camera camera) {
+        if (camera.getFov() != cameraFov) {
+            camera.setFov(cameraFov);
+        }
+        camera.setPosition(cameraX, cameraY);
+        camera.setAngle(cameraAngle);
+        camera.setHeight(cameraHeight);
+    }
+    
+    public GameMap getGameMap() { return gameMap; }
+    public boolean isTopDown() { return topDown; }
+    public Sector getCameraSector() { return cameraSector; }
+    
+    public int getSpriteCount() { return spriteCount; }
+    public double getSpriteX(int i) { return spriteX[i]; }
+    public double getSpriteY(int i) { return spriteY[i]; }
+    public double getSpriteWidth(int i) { return spriteWidth[i]; }
+    public double getSpriteHeight(int i) { return spriteHeight[i]; }
+    public double getSpriteElevation(int i) { return spriteElevation[i]; }
+    public String getSpriteTexture(int i) { return spriteTexture[i]; }
+    public int getSpriteTextureHandle(int i) { return spriteTextureHandle[i]; }
+    public String getSpriteName(int i) { return spriteName[i]; }
+    public Sector getSpriteSector(int i) { return spriteSector[i]; }
+}
\ No newline at end of file
@@ -0,0 +1,227 @@
+package com.arce.render;
+
+import com.arce.assets.Texture;
+import com.arce.core.managers.AssetManager;
+import com.arce.world.Sector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Текстурированные полы и потолки в стиле visplane из Doom.
+ * Во время прохода по стенам для каждой колонки отмечаются вертикальные отрезки
+ * пола/потолка секторов; отрезки с одинаковой высотой, текстурой и освещением
+ * собираются в одну плоскость. Затем каждая плоскость переводится в горизонтальные
+ * строки, и строка рисуется с постоянным шагом по текстуре - без трассировки на пиксель.
+ */
+class PlaneRenderer {
+    private static final int EMPTY = -1;
+    private static final int FIXED_SHIFT = 16;
+    private static final double FIXED_ONE = 1 << FIXED_SHIFT;
+    
+    // Пул плоскостей переиспользуется между кадрами
+    private final List<Visplane> planes = new ArrayList<>();
+    private int activeCount;
+    
+    private int screenWidth;
+    private int screenHeight;
+    private int[] spanStart;
+    
+    PlaneRenderer(int screenWidth, int screenHeight) {
+        resize(screenWidth, screenHeight);
+    }
+    
+    void resize(int newWidth, int newHeight) {
+        this.screenWidth = newWidth;
+        this.screenHeight = newHeight;
+        this.spanStart = new int[newHeight];
+        
+        planes.clear();
+        activeCount = 0;
+    }
+    
+    void beginFrame() {
+        for (int i = 0; i < activeCount; i++) {
+            planes.get(i).clear();
+        }
+        activeCount = 0;
+    }
+    
+    /**
+     * Отмечает видимый в колонке x отрезок пола или потолка сектора.
+     * Текстура 0 - плоскость без текстуры, ее закрывает фон неба и земли.
+     */
+    void markColumn(Sector sector, boolean ceiling, int x, int top, int bottom) {
+        top = Math.max(0, top);
+        bottom = Math.min(screenHeight - 1, bottom);
+        if (top > bottom) {
+            return;
+        }
+        
+        int textureId = ceiling ? sector.getCeilingTextureId() : sector.getFloorTextureId();
+        if (textureId == 0) {
+            return;
+        }
+        
+        double height = ceiling ? sector.getCeilingHeight() : sector.getFloorHeight();
+        Visplane plane = findPlane(height, textureId, sector.getLightLevel(), x);
+        
+        plane.top[x] = top;
+        plane.bottom[x] = bottom;
+        plane.minX = Math.min(plane.minX, x);
+        plane.maxX = Math.max(plane.maxX, x);
+    }
+    
+    // Плоскость с тем же ключом, у которой колонка x еще свободна
+    private Visplane findPlane(double height, int textureId, int lightLevel, int x) {
+        for (int i = 0; i < activeCount; i++) {
+            Visplane plane = planes.get(i);
+            if (plane.height == height && plane.textureId == textureId
+                    && plane.lightLevel == lightLevel && plane.top[x] == EMPTY) {
+                return plane;
+            }
+        }
+        
+        if (activeCount == planes.size()) {
+            planes.add(new Visplane(screenWidth));
+        }
+        
+        Visplane plane = planes.get(activeCount++);
+        plane.height = height;
+        plane.textureId = textureId;
+        plane.lightLevel = lightLevel;
+        return plane;
+    }
+    
+    void render(int[] pixels, Camera camera, AssetManager assetManager) {
+        for (int i = 0; i < activeCount; i++) {
+            Visplane plane = planes.get(i);
+            Texture texture = assetManager.getTextureById(plane.textureId);
+            if (texture != null) {
+                renderPlane(plane, texture, pixels, camera);
+            }
+        }
+    }
+    
+    /**
+     * Перевод вертикальных отрезков плоскости в горизонтальные строки (как R_MakeSpans):
+     * строка открывается, когда появляется в колонке, и рисуется целиком, когда пропадает.
+     */
+    private void renderPlane(Visplane plane, Texture texture, int[] pixels, Camera camera) {
+        int[] top = plane.top;
+        int[] bottom = plane.bottom;
+        
+        int prevTop = screenHeight;
+        int prevBottom = EMPTY;
+        
+        for (int x = plane.minX; x <= plane.maxX + 1; x++) {
+            int curTop = screenHeight;
+            int curBottom = EMPTY;
+            if (x <= plane.maxX && top[x] != EMPTY) {
+                curTop = top[x];
+                curBottom = bottom[x];
+            }
+            
+            int t1 = prevTop;
+            int b1 = prevBottom;
+            int t2 = curTop;
+            int b2 = curBottom;
+            
+            while (t1 < t2 && t1 <= b1) {
+                drawSpan(plane, texture, pixels, camera, t1, spanStart[t1], x - 1);
+                t1++;
+            }
+            while (b1 > b2 && b1 >= t1) {
+                drawSpan(plane, texture, pixels, camera, b1, spanStart[b1], x - 1);
+                b1--;
+            }
+            while (t2 < t1 && t2 <= b2) {
+                spanStart[t2] = x;
+                t2++;
+            }
+            while (b2 > b1 && b2 >= t2) {
+                spanStart[b2] = x;
+                b2--;
+            }
+            
+            prevTop = curTop;
+            prevBottom = curBottom;
+        }
+    }
+    
+    private void drawSpan(Visplane plane, Texture texture, int[] pixels, Camera camera, int y, int x1, int x2) {
+        // Перпендикулярное расстояние до плоскости для строки y - постоянно вдоль строки
+        double rowOffset = y + 0.5 - screenHeight / 2;
+        double perpDistance = (camera.getHeight() - plane.height) * camera.getProjectionScale() / rowOffset;
+        if (perpDistance <= 0) {
+            return;
+        }
+        
+        // Мировая точка колонки x: позиция + (dir + plane * cameraX) * perp, линейна по x
+        double columnStep = 2.0 / (screenWidth - 1);
+        double cameraX = x1 * columnStep - 1.0;
+        double worldX = camera.getX() + (camera.getDirectionX() + camera.getPlaneX() * cameraX) * perpDistance;
+        double worldY = camera.getY() + (camera.getDirectionY() + camera.getPlaneY() * cameraX) * perpDistance;
+        
+        long u = (long) (worldX * FIXED_ONE);
+        long v = (long) (worldY * FIXED_ONE);
+        long uStep = (long) (camera.getPlaneX() * columnStep * perpDistance * FIXED_ONE);
+        long vStep = (long) (camera.getPlaneY() * columnStep * perpDistance * FIXED_ONE);
+        
+        int shadeLevel = ColorMap.levelOffset(plane.lightLevel, perpDistance, false);
+        int index = y * screenWidth + x1;
+        int end = y * screenWidth + x2;
+        
+        if (texture.isPowerOfTwo()) {
+            int[] texels = texture.getTexels();
+            int rowBase = texture.getRowBase();
+            int widthMask = texture.getWidthMask();
+            int heightMask = texture.getHeightMask();
+            int widthShift = texture.getWidthShift();
+            
+            for (; index <= end; index++) {
+                int texX = (int) (u >> FIXED_SHIFT) & widthMask;
+                int texY = (int) (v >> FIXED_SHIFT) & heightMask;
+                pixels[index] = ShadeTable.shade(texels[rowBase + ((texY << widthShift) | texX)], shadeLevel);
+                
+                u += uStep;
+                v += vStep;
+            }
+        } else {
+            for (; index <= end; index++) {
+                int texel = texture.sample((int) (u >> FIXED_SHIFT), (int) (v >> FIXED_SHIFT));
+                pixels[index] = ShadeTable.shade(texel, shadeLevel);
+                
+                u += uStep;
+                v += vStep;
+            }
+        }
+    }
+    
+    private static final class Visplane {
+        double height;
+        int textureId;
+        int lightLevel;
+        int minX;
+        int maxX;
+        final int[] top;
+        final int[] bottom;
+        
+        Visplane(int width) {
+            top = new int[width];
+            bottom = new int[width];
+            Arrays.fill(top, EMPTY);
+            minX = Integer.MAX_VALUE;
+            maxX = Integer.MIN_VALUE;
+        }
+        
+        void clear() {
+            if (minX <= maxX) {
+                Arrays.fill(top, minX, maxX + 1, EMPTY);
+            }
+            minX = Integer.MAX_VALUE;
+            maxX = Integer.MIN_VALUE;
+        }
+    }
+}
\ No newline at end of file
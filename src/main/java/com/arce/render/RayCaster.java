@@ -1,23 +1,47 @@
 package com.arce.render;
 
-import com.arce.math.Ray2D;
-import com.arce.math.Vector2D;
 import com.arce.world.GameMap;
-import com.arce.world.Wall;
+import com.arce.world.RayHit;
 import com.arce.world.Sector;
 import com.arce.core.managers.SpriteManager;
 import com.arce.logger.EngineLogger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 public class RayCaster {
+    // Полос на поток: немного больше одной, чтобы work-stealing выравнивал нагрузку
+    private static final int BANDS_PER_THREAD = 4;
+    private static final int MIN_BAND_WIDTH = 16;
+    private static final double PORTAL_EPSILON = 1e-6;
+    
     private final EngineLogger logger;
     private GameMap gameMap;
     private SpriteManager spriteManager;
     private double maxRenderDistance;
     
+    private final ColumnBuffer columns;
+    private final RayHit serialHit;
+    private final SegmentCaster segmentCaster;
+    private CastMode castMode;
+    private Sector lastCameraSector;
+    
+    private int threadCount;
+    private ForkJoinPool pool;
+    private final FrameTask frameTask;
+    private ColumnBand[] bands;
+    private int bandsScreenWidth;
+    
     public RayCaster(GameMap gameMap) {
         this.logger = new EngineLogger(RayCaster.class);
         this.gameMap = gameMap;
         this.maxRenderDistance = 1000.0;
+        this.columns = new ColumnBuffer(0);
+        this.serialHit = new RayHit();
+        this.segmentCaster = new SegmentCaster();
+        this.castMode = CastMode.RAYCAST;
+        this.threadCount = 1;
+        this.frameTask = new FrameTask();
     }
     
     public void setSpriteManager(SpriteManager spriteManager) {
@@ -25,144 +49,179 @@ public class RayCaster {
         logger.logInfo("Sprite manager connected to raycaster");
     }
     
-    public RaycastColumn[] castRays(Camera camera) {
-        int screenWidth = camera.getScreenWidth();
-        RaycastColumn[] columns = new RaycastColumn[screenWidth];
-        
-        for (int x = 0; x < screenWidth; x++) {
-            Ray2D ray = camera.createRay(x);
-            columns[x] = castSingleRay(ray, camera, x);
+    /**
+     * Включает параллельный режим: экран режется на вертикальные полосы,
+     * которые обрабатываются пулом ForkJoin. 1 поток - обычный последовательный режим.
+     */
+    public void setThreadCount(int threads) {
+        int newCount = Math.max(1, threads);
+        if (newCount == threadCount && (newCount == 1 || pool != null)) {
+            return;
         }
         
-        return columns;
+        shutdown();
+        threadCount = newCount;
+        
+        if (threadCount > 1) {
+            pool = new ForkJoinPool(threadCount);
+            logger.logInfo("Parallel raycasting enabled: {} threads", threadCount);
+        } else {
+            logger.logInfo("Serial raycasting enabled");
+        }
     }
     
-    public RaycastColumn castSingleRay(Ray2D ray, Camera camera, int screenX) {
-        GameMap.RaycastResult result = gameMap.raycast(ray, maxRenderDistance);
-        
-        if (result == null) {
-            return new RaycastColumn(maxRenderDistance, null, null, ray, camera, screenX);
+    public int getThreadCount() { return threadCount; }
+    
+    public CastMode getCastMode() { return castMode; }
+    public void setCastMode(CastMode castMode) {
+        if (this.castMode != castMode) {
+            this.castMode = castMode;
+            logger.logInfo("Wall cast mode: {}", castMode);
         }
-        
-        Sector currentSector = gameMap.findSector(camera.getPosition());
-        return new RaycastColumn(result.distance, result.hitWall, currentSector, ray, camera, screenX);
     }
     
-    public static class RaycastColumn {
-        public double distance;
-        public Wall hitWall;
-        public Sector currentSector;
-        public Ray2D ray;
-        public Camera camera;
-        public int screenX;
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        bands = null;
+        bandsScreenWidth = 0;
+    }
+    
+    /**
+     * Трассирует все колонки экрана. Возвращаемый буфер принадлежит RayCaster
+     * и перезаписывается следующим вызовом.
+     */
+    public ColumnBuffer castRays(Camera camera) {
+        int screenWidth = camera.getScreenWidth();
+        columns.resize(screenWidth);
         
-        public int wallHeight;
-        public int wallTop;
-        public int wallBottom;
-        public double wallTextureX;
+        // Сектор камеры один на весь кадр; камера движется плавно, поэтому начинаем с прошлого
+        Sector cameraSector = gameMap.findSector(camera.getX(), camera.getY(), lastCameraSector);
+        lastCameraSector = cameraSector;
         
-        public RaycastColumn(double distance, Wall hitWall, Sector currentSector, Ray2D ray, Camera camera, int screenX) {
-            this.distance = distance;
-            this.hitWall = hitWall;
-            this.currentSector = currentSector;
-            this.ray = ray;
-            this.camera = camera;
-            this.screenX = screenX;
-            
-            calculateWallProjection();
+        if (castMode == CastMode.SEGMENTS && gameMap.getFlatBsp() != null) {
+            segmentCaster.cast(gameMap.getFlatBsp(), camera, cameraSector, maxRenderDistance, columns);
+        } else if (pool == null) {
+            castColumns(camera, cameraSector, serialHit, 0, screenWidth);
+        } else {
+            castColumnsParallel(camera, cameraSector, screenWidth);
         }
         
-        private void calculateWallProjection() {
-            if (hitWall == null || currentSector == null) {
-                wallHeight = 0;
-                wallTop = camera.getScreenHeight() / 2;
-                wallBottom = camera.getScreenHeight() / 2;
-                wallTextureX = 0;
-                return;
-            }
-            
-            int screenHeight = camera.getScreenHeight();
-            double cameraHeight = camera.getHeight();
-            
-            double floorHeight = currentSector.getFloorHeight();
-            double ceilingHeight = currentSector.getCeilingHeight();
+        return columns;
+    }
+    
+    public ColumnBuffer getColumns() { return columns; }
+    
+    private void castColumns(Camera camera, Sector cameraSector, RayHit hit, int startX, int endX) {
+        double originX = camera.getX();
+        double originY = camera.getY();
+        
+        for (int x = startX; x < endX; x++) {
+            double rayDirX = camera.getRayDirX(x);
+            double rayDirY = camera.getRayDirY(x);
             
-            Vector2D cameraDirection = camera.getDirection();
-            double cosAngle = ray.direction.dot(cameraDirection);
-            double perpDistance = distance * cosAngle;
+            columns.beginColumn(x, maxRenderDistance);
             
-            if (perpDistance > 0.1) {
-                double projectionHeight = screenHeight / perpDistance;
-                
-                double worldWallHeight = ceilingHeight - floorHeight;
-                wallHeight = (int)(worldWallHeight * projectionHeight);
-                
-                double wallMidHeight = (floorHeight + ceilingHeight) / 2.0;
-                double verticalOffset = (cameraHeight - wallMidHeight) * projectionHeight;
-                
-                int wallCenter = screenHeight / 2 + (int)verticalOffset;
-                
-                wallTop = wallCenter - wallHeight / 2;
-                wallBottom = wallCenter + wallHeight / 2;
-            } else {
-                wallHeight = screenHeight;
-                wallTop = 0;
-                wallBottom = screenHeight - 1;
+            // Луч продолжается за порталами до первой сплошной стены одним обходом BSP.
+            // Стены вплотную за порталом (вторая сторона того же портала) пропускаются
+            double minDistance = -1.0;
+            boolean found = gameMap.raycast(originX, originY, rayDirX, rayDirY, maxRenderDistance, hit);
+            while (found) {
+                if (hit.distance > minDistance) {
+                    if (!hit.wall.isPortal() || columns.isPortalListFull(x)) {
+                        columns.setSolidHit(x, hit.wall, hit.distance);
+                        break;
+                    }
+                    columns.addPortalHit(x, hit.wall, hit.distance);
+                    minDistance = hit.distance + PORTAL_EPSILON;
+                }
+                found = gameMap.nextHit(hit);
             }
             
-            wallTop = Math.max(0, wallTop);
-            wallBottom = Math.min(screenHeight - 1, wallBottom);
-            
-            wallHeight = Math.max(1, wallBottom - wallTop);
-            
-            calculateTextureX();
+            columns.resolve(x, camera, cameraSector);
+        }
+    }
+    
+    private void castColumnsParallel(Camera camera, Sector cameraSector, int screenWidth) {
+        if (bands == null || bandsScreenWidth != screenWidth) {
+            createBands(screenWidth);
         }
         
-        private void calculateTextureX() {
-            if (hitWall == null) {
-                wallTextureX = 0;
-                return;
-            }
-            
-            Vector2D hitPoint = ray.getPoint(distance);
-            Vector2D wallStart = hitWall.getLine().start;
-            Vector2D wallEnd = hitWall.getLine().end;
-            
-            Vector2D wallDirection = wallEnd.subtract(wallStart);
-            Vector2D startToHit = hitPoint.subtract(wallStart);
-            
-            double t = startToHit.dot(wallDirection) / wallDirection.dot(wallDirection);
-            t = Math.max(0.0, Math.min(1.0, t));
-            
-            double wallLength = wallDirection.length();
-            wallTextureX = t * wallLength;
-            
-            wallTextureX = wallTextureX % 64.0;
-            if (wallTextureX < 0) wallTextureX += 64.0;
+        for (ColumnBand band : bands) {
+            band.reinitialize();
+            band.camera = camera;
+            band.cameraSector = cameraSector;
+        }
+        
+        frameTask.reinitialize();
+        pool.invoke(frameTask);
+        
+        for (ColumnBand band : bands) {
+            band.camera = null;
+            band.cameraSector = null;
+        }
+    }
+    
+    private void createBands(int screenWidth) {
+        int bandCount = Math.max(1, Math.min(threadCount * BANDS_PER_THREAD, screenWidth / MIN_BAND_WIDTH));
+        
+        bands = new ColumnBand[bandCount];
+        for (int i = 0; i < bandCount; i++) {
+            int startX = (int) ((long) screenWidth * i / bandCount);
+            int endX = (int) ((long) screenWidth * (i + 1) / bandCount);
+            bands[i] = new ColumnBand(startX, endX);
         }
+        bandsScreenWidth = screenWidth;
         
-        public boolean hasHit() {
-            return hitWall != null;
+        logger.logDebug("Raycast bands rebuilt: " + bandCount + " bands for " + screenWidth + " columns");
+    }
+    
+    private final class FrameTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected void compute() {
+            ForkJoinTask.invokeAll(bands);
         }
+    }
+    
+    private final class ColumnBand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int startX;
+        private final int endX;
+        private final RayHit hit = new RayHit();
+        private Camera camera;
+        private Sector cameraSector;
         
-        public boolean isPortal() {
-            return hitWall != null && hitWall.isPortal();
+        ColumnBand(int startX, int endX) {
+            this.startX = startX;
+            this.endX = endX;
         }
         
         @Override
-        public String toString() {
-            return String.format("RaycastColumn(distance: %.2f, wallHeight: %d, hasHit: %b)", 
-                               distance, wallHeight, hasHit());
+        protected void compute() {
+            castColumns(camera, cameraSector, hit, startX, endX);
         }
     }
     
+    public enum CastMode {
+        RAYCAST,    // Отдельный луч через BSP на каждую колонку (можно параллельно)
+        SEGMENTS    // Обход BSP спереди назад с отсечением по колонкам
+    }
+    
     public double getMaxRenderDistance() { return maxRenderDistance; }
     public void setMaxRenderDistance(double maxRenderDistance) { 
         this.maxRenderDistance = maxRenderDistance; 
     }
     
     public GameMap getGameMap() { return gameMap; }
-    public void setGameMap(GameMap gameMap) { this.gameMap = gameMap; }
+    public void setGameMap(GameMap gameMap) {
+        this.gameMap = gameMap;
+        this.lastCameraSector = null;
+    }
     
     public SpriteManager getSpriteManager() { return spriteManager; }
 }
\ No newline at end of file
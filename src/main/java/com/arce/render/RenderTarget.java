@@ -0,0 +1,49 @@
+package com.arce.render;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Кадровый буфер: изображение, его Graphics2D и прямой доступ к пикселям.
+ */
+public final class RenderTarget {
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int[] pixels;
+    
+    public RenderTarget(int width, int height) {
+        allocate(width, height);
+    }
+    
+    private void allocate(int width, int height) {
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.graphics = image.createGraphics();
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+    }
+    
+    /**
+     * Пересоздает буфер под новый размер. Вызывать только владельцу буфера:
+     * прежнее изображение остается у тех, кто успел его получить.
+     */
+    public void ensureSize(int width, int height) {
+        if (width != image.getWidth() || height != image.getHeight()) {
+            graphics.dispose();
+            allocate(width, height);
+        }
+    }
+    
+    public void dispose() {
+        graphics.dispose();
+    }
+    
+    public BufferedImage getImage() { return image; }
+    public Graphics2D getGraphics() { return graphics; }
+    public int[] getPixels() { return pixels; }
+    public int getWidth() { return image.getWidth(); }
+    public int getHeight() { return image.getHeight(); }
+}
\ No newline at end of file
@@ -1,28 +1,53 @@
 package com.arce.render;
 
+import com.arce.world.GameMap;
+import com.arce.world.Sector;
 import com.arce.world.Wall;
 import com.arce.assets.Texture;
 import com.arce.core.managers.AssetManager;
 import com.arce.core.managers.SpriteManager;
-import com.arce.entities.Sprite;
-import com.arce.math.Vector2D;
+import com.arce.entities.SpritePool;
 import com.arce.logger.EngineLogger;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferInt;
-import java.util.List;
+import java.util.Arrays;
 
 public class Renderer {
+    private static final Color SKY_COLOR = new Color(135, 206, 235); // Светло-голубой
+    private static final Color FLOOR_COLOR = new Color(139, 69, 19);  // Коричневый
+    private static final Font DEBUG_FONT = new Font("Arial", Font.PLAIN, 12);
+    private static final Font TOP_DOWN_FONT = new Font("Arial", Font.PLAIN, 8);
+    private static final int TOP_DOWN_SIZE = 400;
+    
+    // Строка текстуры в фиксированной точке 32.32: 16.16 на высоких колонках
+    // накапливает ошибку шага и сдвигает строку текстуры на границах текселей
+    private static final int FIXED_SHIFT = 32;
+    private static final double FIXED_ONE = 1L << FIXED_SHIFT;
+    // Сдвиг на долю текселя, чтобы точные границы не проваливались в предыдущую строку
+    private static final double TEXEL_BIAS = 1e-5;
+    // Верхняя граница V, чтобы не выйти за последнюю строку текстуры
+    private static final double V_LIMIT = 0.9999;
+    
     private final EngineLogger logger;
+    private RenderTarget ownTarget;
     private BufferedImage frameBuffer;
     private Graphics2D graphics;
+    private int[] pixels;
     private int screenWidth;
     private int screenHeight;
     private boolean showDebugInfo = true;
     
     private AssetManager assetManager;
     
-    private double[] depthBuffer;
+    private PlaneRenderer planeRenderer;
+    private SpriteRasterizer spriteRasterizer;
+    
+    // Сектора, до которых дошли лучи кадра: метка кадра по номеру сектора вместо множества
+    private int[] sectorFrame = new int[64];
+    private int frameStamp;
+    private Sector[] visibleSectors = new Sector[64];
+    private int visibleSectorCount;
+    private final SpriteBatch spriteBatch = new SpriteBatch(256);
 
     private Color[] wallColors = {
         Color.GRAY,
@@ -39,7 +64,8 @@ public class Renderer {
         this.logger = new EngineLogger(Renderer.class);
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
-        this.depthBuffer = new double[screenWidth];
+        this.planeRenderer = new PlaneRenderer(screenWidth, screenHeight);
+        this.spriteRasterizer = new SpriteRasterizer(screenWidth, screenHeight);
         
         initializeFrameBuffer();
         logger.logSuccess("Renderer initialized: " + screenWidth + "x" + screenHeight);
@@ -55,29 +81,68 @@ public class Renderer {
     }
     
     private void initializeFrameBuffer() {
-        frameBuffer = new BufferedImage(screenWidth, screenHeight, BufferedImage.TYPE_INT_RGB);
-        graphics = frameBuffer.createGraphics();
-        
-        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        ownTarget = new RenderTarget(screenWidth, screenHeight);
+        setRenderTarget(ownTarget);
     }
     
-    public BufferedImage renderFrame(RayCaster.RaycastColumn[] columns, Camera camera, SpriteManager spriteManager) {
+    /**
+     * Буфер, в который рисуются следующие кадры. По умолчанию - собственный буфер рендерера;
+     * конвейерный режим подставляет сюда свободный буфер из своей ротации.
+     */
+    public void setRenderTarget(RenderTarget target) {
+        if (target.getWidth() != screenWidth || target.getHeight() != screenHeight) {
+            throw new IllegalArgumentException("Render target " + target.getWidth() + "x" + target.getHeight()
+                                               + " does not match renderer " + screenWidth + "x" + screenHeight);
+        }
+        frameBuffer = target.getImage();
+        graphics = target.getGraphics();
+        pixels = target.getPixels();
+    }
+    
+    public BufferedImage renderFrame(ColumnBuffer columns, Camera camera, SpriteManager spriteManager) {
         clearScreen();
-        clearDepthBuffer();
         renderSkyAndFloor();
         renderWalls(columns);
+        renderPlanes(camera);
+        spriteRasterizer.beginFrame(columns, camera);
         renderSprites(camera, spriteManager);
         
         if (showDebugInfo) {
-            renderDebugInfo(camera, spriteManager);
+            renderDebugInfo(camera, spriteManager != null ? spriteManager.getSpriteCount() : -1);
+        }
+        
+        releaseRetiredTextures();
+        return frameBuffer;
+    }
+    
+    /**
+     * Кадр по снимку мира - для потока рендера, который не должен читать живые объекты симуляции.
+     */
+    public BufferedImage renderFrame(ColumnBuffer columns, Camera camera, FrameSnapshot snapshot) {
+        clearScreen();
+        renderSkyAndFloor();
+        renderWalls(columns);
+        renderPlanes(camera);
+        spriteRasterizer.beginFrame(columns, camera);
+        renderSprites(camera, snapshot);
+        
+        if (showDebugInfo) {
+            renderDebugInfo(camera, snapshot.getSpriteCount());
         }
         
+        releaseRetiredTextures();
         return frameBuffer;
     }
     
-    public BufferedImage renderFrame(RayCaster.RaycastColumn[] columns, Camera camera) {
-        return renderFrame(columns, camera, null);
+    // Кадр больше не читает тексели: замененные во время него текстуры можно вернуть в атлас
+    private void releaseRetiredTextures() {
+        if (assetManager != null) {
+            assetManager.endFrame();
+        }
+    }
+    
+    public BufferedImage renderFrame(ColumnBuffer columns, Camera camera) {
+        return renderFrame(columns, camera, (SpriteManager) null);
     }
     
     private void clearScreen() {
@@ -85,119 +150,231 @@ public class Renderer {
         graphics.fillRect(0, 0, screenWidth, screenHeight);
     }
     
-    private void clearDepthBuffer() {
-        for (int i = 0; i < depthBuffer.length; i++) {
-            depthBuffer[i] = Double.MAX_VALUE;
-        }
-    }
-    
     private void renderSkyAndFloor() {
         int horizon = screenHeight / 2;
         
         // Небо (верхняя половина)
-        graphics.setColor(new Color(135, 206, 235)); // Светло-голубой
+        graphics.setColor(SKY_COLOR);
         graphics.fillRect(0, 0, screenWidth, horizon);
         
         // Пол (нижняя половина)
-        graphics.setColor(new Color(139, 69, 19)); // Коричневый
+        graphics.setColor(FLOOR_COLOR);
         graphics.fillRect(0, horizon, screenWidth, screenHeight - horizon);
     }
     
-    private void renderWalls(RayCaster.RaycastColumn[] columns) {
-        for (int x = 0; x < columns.length; x++) {
-            RayCaster.RaycastColumn column = columns[x];
-            
-            if (column.hasHit()) {
-                renderWallColumn(x, column);
-                if (x < depthBuffer.length) {
-                    depthBuffer[x] = column.distance;
-                }
+    private void renderWalls(ColumnBuffer columns) {
+        planeRenderer.beginFrame();
+        frameStamp++;
+        visibleSectorCount = 0;
+        
+        int width = Math.min(columns.getWidth(), screenWidth);
+        for (int x = 0; x < width; x++) {
+            if (columns.portalCount[x] > 0) {
+                renderPortalSections(x, columns);
+            }
+            markVisibleSectors(x, columns);
+            if (columns.hasHit(x)) {
+                renderWallColumn(x, columns);
+            }
+            if (assetManager != null) {
+                markPlanes(x, columns);
             }
         }
     }
     
-    private void renderWallColumn(int x, RayCaster.RaycastColumn column) {
-        Wall wall = column.hitWall;
+    private void markVisibleSectors(int x, ColumnBuffer columns) {
+        int base = x * ColumnBuffer.MAX_PORTALS;
+        for (int s = base, end = base + columns.portalCount[x]; s < end; s++) {
+            markVisibleSector(columns.portalFront[s]);
+        }
+        markVisibleSector(columns.sector[x]);
+    }
+    
+    private void markVisibleSector(Sector sector) {
+        if (sector == null || sector.getIndex() < 0) {
+            return;
+        }
         
+        int index = sector.getIndex();
+        if (index >= sectorFrame.length) {
+            sectorFrame = Arrays.copyOf(sectorFrame, Math.max(index + 1, sectorFrame.length * 2));
+        }
+        if (sectorFrame[index] == frameStamp) {
+            return;
+        }
+        sectorFrame[index] = frameStamp;
+        
+        if (visibleSectorCount == visibleSectors.length) {
+            visibleSectors = Arrays.copyOf(visibleSectors, visibleSectorCount * 2);
+        }
+        visibleSectors[visibleSectorCount++] = sector;
+    }
+    
+    private boolean isSectorVisible(Sector sector) {
+        if (sector == null) {
+            return false;
+        }
+        int index = sector.getIndex();
+        return index >= 0 && index < sectorFrame.length && sectorFrame[index] == frameStamp;
+    }
+    
+    // Отрезки пола и потолка каждого сектора колонки: между предыдущей границей
+    // отсечения и краями очередного портала, а в последнем секторе - до стены
+    private void markPlanes(int x, ColumnBuffer columns) {
+        int clipTop = 0;
+        int clipBottom = screenHeight - 1;
+        
+        int base = x * ColumnBuffer.MAX_PORTALS;
+        for (int s = base, end = base + columns.portalCount[x]; s < end; s++) {
+            Sector front = columns.portalFront[s];
+            planeRenderer.markColumn(front, true, x, clipTop, Math.min(clipBottom, columns.upperTop[s] - 1));
+            planeRenderer.markColumn(front, false, x, Math.max(clipTop, columns.lowerBottom[s] + 1), clipBottom);
+            
+            clipTop = columns.clipTop[s];
+            clipBottom = columns.clipBottom[s];
+        }
+        
+        Sector sector = columns.sector[x];
+        if (sector != null && clipTop <= clipBottom) {
+            planeRenderer.markColumn(sector, true, x, clipTop, Math.min(clipBottom, columns.wallTop[x] - 1));
+            planeRenderer.markColumn(sector, false, x, Math.max(clipTop, columns.wallBottom[x] + 1), clipBottom);
+        }
+    }
+    
+    private void renderPlanes(Camera camera) {
         if (assetManager != null) {
-            renderTexturedWallColumn(x, column);
+            planeRenderer.render(pixels, camera, assetManager);
+        }
+    }
+    
+    private void renderWallColumn(int x, ColumnBuffer columns) {
+        if (assetManager != null) {
+            renderTexturedWallColumn(x, columns);
         } else {
-            renderColoredWallColumn(x, column);
+            renderColoredWallColumn(x, columns);
+        }
+    }
+    
+    // Верхние и нижние ступени на границах секторов, видимые через порталы колонки
+    private void renderPortalSections(int x, ColumnBuffer columns) {
+        int base = x * ColumnBuffer.MAX_PORTALS;
+        for (int s = base, end = base + columns.portalCount[x]; s < end; s++) {
+            Wall wall = columns.portalWall[s];
+            Sector front = columns.portalFront[s];
+            Sector back = columns.portalBack[s];
+            
+            if (columns.upperTop[s] <= columns.upperBottom[s]) {
+                renderSection(x, wall, front.getLightLevel(), columns.portalTextureX[s], columns.portalDistance[s],
+                              columns.upperTop[s], columns.upperBottom[s],
+                              front.getCeilingHeight() - back.getCeilingHeight());
+            }
+            if (columns.lowerTop[s] <= columns.lowerBottom[s]) {
+                renderSection(x, wall, front.getLightLevel(), columns.portalTextureX[s], columns.portalDistance[s],
+                              columns.lowerTop[s], columns.lowerBottom[s],
+                              back.getFloorHeight() - front.getFloorHeight());
+            }
+        }
+    }
+    
+    private void renderSection(int x, Wall wall, int lightLevel, double textureX, double distance,
+                               int top, int bottom, double worldHeight) {
+        if (assetManager != null) {
+            Texture texture = assetManager.getTextureById(wall.getTextureId());
+            renderTexturedSpan(x, texture, wall, lightLevel, textureX, distance, top, bottom, worldHeight);
+        } else {
+            Color color = applyDistanceShading(getWallColor(wall), distance, lightLevel);
+            if (isHorizontalWall(wall)) {
+                color = color.darker();
+            }
+            graphics.setColor(color);
+            graphics.drawLine(x, top, x, bottom);
         }
     }
     
     // ОПТИМИЗИРОВАННАЯ версия рендеринга текстурированной стены
-    private void renderTexturedWallColumn(int x, RayCaster.RaycastColumn column) {
-        Wall wall = column.hitWall;
+    private void renderTexturedWallColumn(int x, ColumnBuffer columns) {
+        Wall wall = columns.hitWall[x];
         Texture texture = assetManager.getTextureById(wall.getTextureId());
         
-        int wallHeight = column.wallBottom - column.wallTop;
+        double worldWallHeight = columns.sector[x] != null ? columns.sector[x].getWallHeight() : 64.0;
         
-        int textureWidth = texture.getWidth();
-        int textureHeight = texture.getHeight();
-        
-        double worldWallHeight = column.currentSector != null ? column.currentSector.getWallHeight() : 64.0;
+        renderTexturedSpan(x, texture, wall, sectorLight(columns.sector[x]), columns.textureX[x], columns.distance[x],
+                           columns.wallTop[x], columns.wallBottom[x], worldWallHeight);
+    }
+    
+    private void renderTexturedSpan(int x, Texture texture, Wall wall, int lightLevel, double textureX,
+                                    double distance, int wallTop, int wallBottom, double worldWallHeight) {
+        if (Math.max(0, wallTop) > Math.min(screenHeight - 1, wallBottom)) {
+            return;
+        }
         
-        int[] frameBufferData = ((DataBufferInt) frameBuffer.getRaster().getDataBuffer()).getData();
+        int textureWidth = texture.getWidth();
         
         // ИСПРАВЛЕНО: корректная нормализация U-координаты
-        double uCoord = (column.wallTextureX % textureWidth) / textureWidth;
+        double uCoord = (textureX % textureWidth) / textureWidth;
         if (uCoord < 0) uCoord += 1.0;
         
+        // Вся колонка стены берется из одного столбца текстуры - читаем его подряд
+        int texX = Math.max(0, Math.min(textureWidth - 1, (int) (uCoord * textureWidth)));
+        int shadeLevel = ColorMap.levelOffset(lightLevel, distance, isHorizontalWall(wall));
+        
+        drawWallSpan(pixels, screenWidth, screenHeight, x, texture.getColumnTexels(), texture.getColumnOffset(texX),
+                     texture.getHeight(), wallTop, wallBottom, worldWallHeight, shadeLevel);
+    }
+    
+    /**
+     * Видимая часть колонки стены [wallTop, wallBottom] из одного столбца текстуры.
+     * Строка текстуры шагает в фиксированной точке 32.32. Отдельный метод - его мерит WallSpanBenchmark.
+     */
+    static void drawWallSpan(int[] frameBufferData, int screenWidth, int screenHeight, int x,
+                             int[] columnTexels, int columnOffset, int textureHeight,
+                             int wallTop, int wallBottom, double worldWallHeight, int shadeLevel) {
+        int startY = Math.max(0, wallTop);
+        int endY = Math.min(screenHeight - 1, wallBottom);
+        int wallHeight = wallBottom - wallTop;
+        
         // ИСПРАВЛЕНО: Правильное вычисление V-координат с учетом мирового масштаба
         double vStep = worldWallHeight / (wallHeight * textureHeight);
         double vStart = 0.0;
         
         // Если стена обрезана сверху или снизу, корректируем начальную V-координату
-        if (column.wallTop < 0) {
-            vStart += vStep * textureHeight * (-column.wallTop);
-        }
-        
-        double shadingFactor = Math.max(0.2, 1.0 - (column.distance / 200.0));
-        
-        boolean isHorizontal = isHorizontalWall(wall);
-        double horizontalDarkening = isHorizontal ? 0.8 : 1.0;
-        
-        for (int y = column.wallTop; y <= column.wallBottom; y++) {
-            if (y >= 0 && y < screenHeight) {
-                // ИСПРАВЛЕНО: Правильное вычисление V-координаты
-                double v = vStart + (y - Math.max(0, column.wallTop)) * vStep;
-                v = Math.max(0.0, Math.min(0.9999, v)); // Избегаем выхода за границы текстуры
-                
-                int pixelRgb = texture.getPixelRGB(uCoord, v);
-                
-                int r = (int) (((pixelRgb >> 16) & 0xFF) * shadingFactor * horizontalDarkening);
-                int g = (int) (((pixelRgb >>  8) & 0xFF) * shadingFactor * horizontalDarkening);
-                int b = (int) ((pixelRgb & 0xFF) * shadingFactor * horizontalDarkening);
-                
-                r = Math.max(0, Math.min(255, r));
-                g = Math.max(0, Math.min(255, g));
-                b = Math.max(0, Math.min(255, b));
-                
-                int finalRgb = (r << 16) | (g << 8) | b;
-                frameBufferData[y * screenWidth + x] = finalRgb;
-            }
+        if (wallTop < 0) {
+            vStart += vStep * textureHeight * (-wallTop);
+        }
+        
+        // Строка текстуры в фиксированной точке, шаг на пиксель экрана
+        long texYFixed = (long) ((Math.min(vStart, V_LIMIT) * textureHeight + TEXEL_BIAS) * FIXED_ONE);
+        long texYStep = wallHeight > 0 ? (long) (vStep * textureHeight * FIXED_ONE) : 0;
+        int maxTexY = Math.min(textureHeight - 1, (int) (V_LIMIT * textureHeight));
+        
+        int index = startY * screenWidth + x;
+        for (int y = startY; y <= endY; y++) {
+            int texY = (int) Math.min(maxTexY, texYFixed >> FIXED_SHIFT);
+            frameBufferData[index] = ShadeTable.shade(columnTexels[columnOffset + texY], shadeLevel);
+            
+            texYFixed += texYStep;
+            index += screenWidth;
         }
     }
     
-    private void renderColoredWallColumn(int x, RayCaster.RaycastColumn column) {
-        Wall wall = column.hitWall;
+    private void renderColoredWallColumn(int x, ColumnBuffer columns) {
+        Wall wall = columns.hitWall[x];
         
         Color wallColor = getWallColor(wall);
-        wallColor = applyDistanceShading(wallColor, column.distance);
+        wallColor = applyDistanceShading(wallColor, columns.distance[x], sectorLight(columns.sector[x]));
         
         if (isHorizontalWall(wall)) {
             wallColor = wallColor.darker();
         }
         
         graphics.setColor(wallColor);
-        graphics.drawLine(x, column.wallTop, x, column.wallBottom);
+        graphics.drawLine(x, columns.wallTop[x], x, columns.wallBottom[x]);
 
-        renderWallTexture(x, column, wallColor);
+        renderWallTexture(x, columns, wallColor);
     }
     
-    private void renderWallTexture(int x, RayCaster.RaycastColumn column, Color baseColor) {
-        double texturePos = column.wallTextureX * 64;
+    private void renderWallTexture(int x, ColumnBuffer columns, Color baseColor) {
+        double texturePos = columns.textureX[x] * 64;
         
         if ((int) texturePos % 8 < 4) {
             Color darkerColor = new Color(
@@ -206,101 +383,61 @@ public class Renderer {
                 Math.max(0, baseColor.getBlue() - 30)
             );
             graphics.setColor(darkerColor);
-            graphics.drawLine(x, column.wallTop, x, column.wallBottom);
+            graphics.drawLine(x, columns.wallTop[x], x, columns.wallBottom[x]);
         }
     }
     
     private void renderSprites(Camera camera, SpriteManager spriteManager) {
         if (spriteManager == null) return;
         
-        List<Sprite> visibleSprites = spriteManager.getVisibleSprites(camera);
-        
-        for (Sprite sprite : visibleSprites) {
-            renderSprite(sprite, camera);
+        spriteBatch.begin(camera);
+        spriteManager.collectVisibleSprites(visibleSectors, visibleSectorCount, spriteBatch);
+        drawSpriteBatch();
+    }
+    
+    // Те же правила, что и для SpriteManager: спрайты видимых в кадре секторов в конусе обзора
+    private void renderSprites(Camera camera, FrameSnapshot snapshot) {
+        spriteBatch.begin(camera);
+        for (int i = 0, n = snapshot.getSpriteCount(); i < n; i++) {
+            if (isSectorVisible(snapshot.getSpriteSector(i))) {
+                spriteBatch.add(snapshot.getSpriteX(i), snapshot.getSpriteY(i), snapshot.getSpriteWidth(i),
+                                snapshot.getSpriteHeight(i), snapshot.getSpriteElevation(i),
+                                snapshot.getSpriteTexture(i), snapshot.getSpriteTextureHandle(i),
+                                snapshot.getSpriteSector(i));
+            }
         }
+        drawSpriteBatch();
     }
     
-    private void renderSprite(Sprite sprite, Camera camera) {
-        Vector2D spritePos = sprite.getPosition();
-        Vector2D cameraPos = camera.getPosition();
-        Vector2D cameraDir = camera.getDirection();
-        Vector2D cameraPlane = camera.getCameraPlane();
-        
-        Vector2D spriteVector = spritePos.subtract(cameraPos);
-        
-        double distance = spriteVector.length();
-        if (distance < 0.1) return;
-        
-        double invDet = 1.0 / (cameraPlane.x * cameraDir.y - cameraDir.x * cameraPlane.y);
-        double transformX = invDet * (cameraDir.y * spriteVector.x - cameraDir.x * spriteVector.y);
-        double transformY = invDet * (-cameraPlane.y * spriteVector.x + cameraPlane.x * spriteVector.y);
-        
-        if (transformY <= 0) return;
-        
-        int spriteScreenX = (int)((screenWidth / 2) * (1 + transformX / transformY));
-        
-        int spriteHeight = Math.abs((int)(screenHeight / transformY));
-        int spriteWidth = Math.abs((int)(screenHeight / transformY));
-        
-        int drawStartY = Math.max(0, (-spriteHeight / 2) + (screenHeight / 2));
-        int drawEndY = Math.min(screenHeight - 1, (spriteHeight / 2) + (screenHeight / 2));
-        int drawStartX = Math.max(0, (-spriteWidth / 2) + spriteScreenX);
-        int drawEndX = Math.min(screenWidth - 1, (spriteWidth / 2) + spriteScreenX);
+    private void drawSpriteBatch() {
+        spriteBatch.sort();
+        for (int k = 0, n = spriteBatch.size(); k < n; k++) {
+            int i = spriteBatch.backToFront(k);
+            renderSprite(spriteBatch.getX(i), spriteBatch.getY(i), spriteBatch.getWidth(i), spriteBatch.getHeight(i),
+                         spriteBatch.getElevation(i), spriteBatch.getTexture(i), spriteBatch.getTextureHandle(i),
+                         spriteBatch.getSector(i));
+        }
+    }
+    
+    private void renderSprite(double spriteX, double spriteY, double width, double height, double elevation,
+                              String textureName, int textureHandle, Sector sector) {
+        if (!spriteRasterizer.project(spriteX, spriteY, width, height, elevation, sector)) {
+            return;
+        }
         
         if (assetManager != null) {
-            renderTexturedSprite(sprite, drawStartX, drawEndX, drawStartY, drawEndY, 
-                               spriteWidth, spriteHeight, transformY);
+            // Без разрешенного номера (спрайты без AssetManager) - поиск по имени
+            Texture texture = textureHandle != SpritePool.NO_TEXTURE ?
+                assetManager.getTextureByHandle(textureHandle) : assetManager.getTexture(textureName);
+            int shadeLevel = ColorMap.levelOffset(sectorLight(sector), spriteRasterizer.getDepth(), false);
+            spriteRasterizer.draw(pixels, texture, shadeLevel);
         } else {
-            renderColoredSprite(sprite, drawStartX, drawEndX, drawStartY, drawEndY);
-        }
-    }
-    
-    // ОПТИМИЗИРОВАННАЯ версия рендеринга текстурированного спрайта
-    private void renderTexturedSprite(Sprite sprite, int startX, int endX, int startY, int endY,
-                                    int spriteWidth, int spriteHeight, double distance) {
-        String textureName = sprite.getCurrentTextureName();
-        Texture texture = assetManager.getTexture(textureName);
-        
-        int[] frameBufferData = ((DataBufferInt) frameBuffer.getRaster().getDataBuffer()).getData();
-        
-        double shadingFactor = Math.max(0.2, 1.0 - (distance / 200.0));
-        
-        for (int x = startX; x < endX; x++) {
-            if (x >= 0 && x < depthBuffer.length && distance < depthBuffer[x]) {
-                
-                double u = (double)(x - startX) / spriteWidth;
-                
-                for (int y = startY; y < endY; y++) {
-                    if (y >= 0 && y < screenHeight) {
-                        double v = (double)(y - startY) / spriteHeight;
-                        
-                        int pixelRgb = texture.getPixelRGB(u, v);
-                        
-                        int red = (pixelRgb >> 16) & 0xFF;
-                        int green = (pixelRgb >> 8) & 0xFF;
-                        int blue = pixelRgb & 0xFF;
-                        
-                        if (red < 10 && green < 10 && blue < 10) {
-                            continue;
-                        }
-                        
-                        int r = (int) (red * shadingFactor);
-                        int g = (int) (green * shadingFactor);
-                        int b = (int) (blue * shadingFactor);
-                        
-                        r = Math.max(0, Math.min(255, r));
-                        g = Math.max(0, Math.min(255, g));
-                        b = Math.max(0, Math.min(255, b));
-                        
-                        int rgb = (r << 16) | (g << 8) | b;
-                        frameBufferData[y * screenWidth + x] = rgb;
-                    }
-                }
-            }
+            renderColoredSprite(spriteRasterizer.getStartX(), spriteRasterizer.getEndX(),
+                                spriteRasterizer.getStartY(), spriteRasterizer.getEndY());
         }
     }
     
-    private void renderColoredSprite(Sprite sprite, int startX, int endX, int startY, int endY) {
+    private void renderColoredSprite(int startX, int endX, int startY, int endY) {
         graphics.setColor(Color.MAGENTA);
         graphics.fillOval(startX, startY, endX - startX, endY - startY);
     }
@@ -313,24 +450,13 @@ public class Renderer {
         return wallColors[0];
     }
     
-    private Color applyDistanceShading(Color color, double distance) {      
-        double maxDistance = 200.0;
-        double factor = Math.max(0.2, 1.0 - (distance / maxDistance));
-        
-        int r = (int) (color.getRed() * factor);
-        int g = (int) (color.getGreen() * factor);
-        int b = (int) (color.getBlue() * factor);
-        
-        return new Color(
-            Math.max(0, Math.min(255, r)),
-            Math.max(0, Math.min(255, g)),
-            Math.max(0, Math.min(255, b))
-        );
+    private Color applyDistanceShading(Color color, double distance, int lightLevel) {
+        return new Color(ShadeTable.shade(color.getRGB(), ColorMap.levelOffset(lightLevel, distance, false)));
     }
     
-    private double calculateShadingFactor(double distance) {
-        double maxDistance = 200.0;
-        return Math.max(0.2, 1.0 - (distance / maxDistance));
+    // Освещенность сектора 0-255; без сектора - полная яркость
+    private static int sectorLight(Sector sector) {
+        return sector != null ? sector.getLightLevel() : 255;
     }
     
     private boolean isHorizontalWall(Wall wall) {
@@ -339,11 +465,12 @@ public class Renderer {
         return dx > dy;
     }
 
-    private void renderDebugInfo(Camera camera, SpriteManager spriteManager) {
+    // spriteCount < 0 - спрайтов в кадре нет вообще
+    private void renderDebugInfo(Camera camera, int spriteCount) {
         if (!showDebugInfo) return;
         
         graphics.setColor(Color.WHITE);
-        graphics.setFont(new Font("Arial", Font.PLAIN, 12));
+        graphics.setFont(DEBUG_FONT);
         
         String posInfo = String.format("Pos: (%.1f, %.1f)", camera.getPosition().x, camera.getPosition().y);
         graphics.drawString(posInfo, 10, 20);
@@ -354,8 +481,8 @@ public class Renderer {
         String fovInfo = String.format("FOV: %.1f°", Math.toDegrees(camera.getFov()));
         graphics.drawString(fovInfo, 10, 50);
         
-        if (spriteManager != null) {
-            String spriteInfo = String.format("Sprites: %d", spriteManager.getSpriteCount());
+        if (spriteCount >= 0) {
+            String spriteInfo = String.format("Sprites: %d", spriteCount);
             graphics.drawString(spriteInfo, 10, 65);
             
             if (assetManager != null) {
@@ -375,47 +502,75 @@ public class Renderer {
     
     // 2D вид с поддержкой спрайтов (рендерим внутриигровую карту)
     public BufferedImage renderTopDownView(Camera camera, RayCaster rayCaster, SpriteManager spriteManager) {
-        BufferedImage topView = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB);
+        BufferedImage topView = new BufferedImage(TOP_DOWN_SIZE, TOP_DOWN_SIZE, BufferedImage.TYPE_INT_RGB);
         Graphics2D g = topView.createGraphics();
         
+        drawTopDownWalls(g, rayCaster.getGameMap());
+        
+        if (spriteManager != null) {
+            SpritePool pool = spriteManager.getPool();
+            for (int slot = 0, n = pool.size(); slot < n; slot++) {
+                drawTopDownSprite(g, pool.getX(slot), pool.getY(slot), pool.getName(slot));
+            }
+        }
+        
+        drawTopDownPlayer(g, camera);
+        
+        g.dispose();
+        return topView;
+    }
+    
+    /**
+     * 2D вид по снимку мира, прямо в текущий буфер кадра.
+     */
+    public BufferedImage renderTopDownView(Camera camera, FrameSnapshot snapshot) {
+        clearScreen();
+        
+        drawTopDownWalls(graphics, snapshot.getGameMap());
+        for (int i = 0, n = snapshot.getSpriteCount(); i < n; i++) {
+            drawTopDownSprite(graphics, snapshot.getSpriteX(i), snapshot.getSpriteY(i), snapshot.getSpriteName(i));
+        }
+        drawTopDownPlayer(graphics, camera);
+        
+        return frameBuffer;
+    }
+    
+    private void drawTopDownWalls(Graphics2D g, GameMap gameMap) {
         g.setColor(Color.BLACK);
-        g.fillRect(0, 0, 400, 400);
+        g.fillRect(0, 0, TOP_DOWN_SIZE, TOP_DOWN_SIZE);
         
         g.setColor(Color.WHITE);
-        for (Wall wall : rayCaster.getGameMap().getWalls()) {
+        for (Wall wall : gameMap.getWalls()) {
             int x1 = (int) (wall.getLine().start.x);
             int y1 = (int) (wall.getLine().start.y);
             int x2 = (int) (wall.getLine().end.x);
             int y2 = (int) (wall.getLine().end.y);
             g.drawLine(x1, y1, x2, y2);
         }
+    }
+    
+    private void drawTopDownSprite(Graphics2D g, double x, double y, String name) {
+        int spriteX = (int) x;
+        int spriteY = (int) y;
         
-        if (spriteManager != null) {
-            g.setColor(Color.CYAN);
-            for (Sprite sprite : spriteManager.getAllSprites()) {
-                int spriteX = (int) sprite.getPosition().x;
-                int spriteY = (int) sprite.getPosition().y;
-                g.fillOval(spriteX - 3, spriteY - 3, 6, 6);
-                
-                g.setColor(Color.YELLOW);
-                g.setFont(new Font("Arial", Font.PLAIN, 8));
-                g.drawString(sprite.getName(), spriteX + 5, spriteY);
-                g.setColor(Color.CYAN);
-            }
-        }
+        g.setColor(Color.CYAN);
+        g.fillOval(spriteX - 3, spriteY - 3, 6, 6);
         
+        g.setColor(Color.YELLOW);
+        g.setFont(TOP_DOWN_FONT);
+        g.drawString(name, spriteX + 5, spriteY);
+    }
+    
+    private void drawTopDownPlayer(Graphics2D g, Camera camera) {
         g.setColor(Color.RED);
-        int playerX = (int) camera.getPosition().x;
-        int playerY = (int) camera.getPosition().y;
+        int playerX = (int) camera.getX();
+        int playerY = (int) camera.getY();
         g.fillOval(playerX - 3, playerY - 3, 6, 6);
         
         g.setColor(Color.YELLOW);
         int dirX = playerX + (int) (Math.cos(camera.getAngle()) * 20);
         int dirY = playerY + (int) (Math.sin(camera.getAngle()) * 20);
         g.drawLine(playerX, playerY, dirX, dirY);
-        
-        g.dispose();
-        return topView;
     }
     
     public BufferedImage renderTopDownView(Camera camera, RayCaster rayCaster) {
@@ -427,9 +582,10 @@ public class Renderer {
             screenWidth = newWidth;
             screenHeight = newHeight;
             
-            depthBuffer = new double[screenWidth];
+            planeRenderer.resize(screenWidth, screenHeight);
+            spriteRasterizer.resize(screenWidth, screenHeight);
             
-            graphics.dispose();
+            ownTarget.dispose();
             initializeFrameBuffer();
             
             logger.logInfo("Renderer resized to: " + screenWidth + "x" + screenHeight);
@@ -492,8 +648,8 @@ public class Renderer {
 
     @Override
     protected void finalize() {
-        if (graphics != null) {
-            graphics.dispose();
+        if (ownTarget != null) {
+            ownTarget.dispose();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package com.arce.render;
+
+import com.arce.math.Line2D;
+import com.arce.world.FlatBSP;
+import com.arce.world.Sector;
+import com.arce.world.Wall;
+
+/**
+ * Рендер стен в стиле Doom: листья BSP обходятся спереди назад от камеры,
+ * каждый отрезок проецируется на экран один раз и заполняет только еще не закрытые колонки.
+ * Как только все колонки закрыты, обход прекращается - стоимость зависит от числа
+ * видимых стен, а не от ширины экрана и глубины дерева.
+ */
+class SegmentCaster implements FlatBSP.LeafVisitor {
+    private static final double NEAR_PLANE = 0.01;
+    
+    private FlatBSP bsp;
+    private int[] stack;
+    
+    private boolean[] solid;
+    private int solidCount;
+    private int[] pending;
+    private int pendingCount;
+    private double[] rayDirX;
+    private double[] rayDirY;
+    
+    // Состояние текущего кадра
+    private ColumnBuffer columns;
+    private Camera camera;
+    private Sector cameraSector;
+    private int screenWidth;
+    private double originX;
+    private double originY;
+    private double invDet;
+    
+    void cast(FlatBSP bsp, Camera camera, Sector cameraSector, double maxDistance, ColumnBuffer columns) {
+        prepare(bsp, camera, cameraSector, maxDistance, columns);
+        
+        // Поддеревья дальше дальности прорисовки не дадут ни одной колонки - их не обходим
+        bsp.traverseFrontToBack(originX, originY, maxDistance, stack, this);
+        
+        for (int x = 0; x < screenWidth; x++) {
+            columns.resolve(x, camera, cameraSector);
+        }
+        
+        this.columns = null;
+        this.camera = null;
+        this.cameraSector = null;
+    }
+    
+    private void prepare(FlatBSP bsp, Camera camera, Sector cameraSector, double maxDistance, ColumnBuffer columns) {
+        if (this.bsp != bsp) {
+            this.bsp = bsp;
+            this.stack = bsp.createTraversalStack();
+        }
+        
+        this.columns = columns;
+        this.camera = camera;
+        this.cameraSector = cameraSector;
+        this.screenWidth = columns.getWidth();
+        this.originX = camera.getX();
+        this.originY = camera.getY();
+        
+        if (solid == null || solid.length < screenWidth) {
+            solid = new boolean[screenWidth];
+            pending = new int[screenWidth];
+            rayDirX = new double[screenWidth];
+            rayDirY = new double[screenWidth];
+        }
+        
+        double dirX = camera.getDirectionX();
+        double dirY = camera.getDirectionY();
+        double planeX = camera.getPlaneX();
+        double planeY = camera.getPlaneY();
+        invDet = 1.0 / (dirX * planeY - planeX * dirY);
+        
+        for (int x = 0; x < screenWidth; x++) {
+            rayDirX[x] = camera.getRayDirX(x);
+            rayDirY[x] = camera.getRayDirY(x);
+            solid[x] = false;
+            columns.beginColumn(x, maxDistance);
+        }
+        
+        solidCount = 0;
+        pendingCount = 0;
+    }
+    
+    @Override
+    public boolean visitLeaf(int firstSegment, int segmentCount) {
+        double[] coords = bsp.getSegmentCoords();
+        
+        for (int i = firstSegment, end = firstSegment + segmentCount; i < end; i++) {
+            int base = i * 4;
+            renderSegment(i, coords[base], coords[base + 1], coords[base + 2], coords[base + 3]);
+        }
+        
+        // Внутри листа стены не упорядочены, поэтому колонки закрываются только
+        // после обработки всего листа - ближайшая стена листа выигрывает по расстоянию
+        for (int i = 0; i < pendingCount; i++) {
+            solid[pending[i]] = true;
+        }
+        solidCount += pendingCount;
+        pendingCount = 0;
+        
+        return solidCount < screenWidth;
+    }
+    
+    private void renderSegment(int segment, double x1, double y1, double x2, double y2) {
+        double dirX = camera.getDirectionX();
+        double dirY = camera.getDirectionY();
+        double planeX = camera.getPlaneX();
+        double planeY = camera.getPlaneY();
+        
+        // Перевод концов отрезка в пространство камеры: depth - вдоль взгляда,
+        // lateral/depth - координата на плоскости камеры (-1..1 в пределах FOV)
+        double rx1 = x1 - originX;
+        double ry1 = y1 - originY;
+        double rx2 = x2 - originX;
+        double ry2 = y2 - originY;
+        
+        double depth1 = (planeY * rx1 - planeX * ry1) * invDet;
+        double depth2 = (planeY * rx2 - planeX * ry2) * invDet;
+        double lateral1 = (dirX * ry1 - dirY * rx1) * invDet;
+        double lateral2 = (dirX * ry2 - dirY * rx2) * invDet;
+        
+        if (depth1 < NEAR_PLANE && depth2 < NEAR_PLANE) {
+            return;
+        }
+        
+        // Отсечение по ближней плоскости
+        if (depth1 < NEAR_PLANE) {
+            double t = (NEAR_PLANE - depth1) / (depth2 - depth1);
+            lateral1 += (lateral2 - lateral1) * t;
+            depth1 = NEAR_PLANE;
+        } else if (depth2 < NEAR_PLANE) {
+            double t = (NEAR_PLANE - depth2) / (depth1 - depth2);
+            lateral2 += (lateral1 - lateral2) * t;
+            depth2 = NEAR_PLANE;
+        }
+        
+        double halfWidth = (screenWidth - 1) / 2.0;
+        double screenX1 = (lateral1 / depth1 + 1.0) * halfWidth;
+        double screenX2 = (lateral2 / depth2 + 1.0) * halfWidth;
+        if (screenX1 > screenX2) {
+            double tmp = screenX1;
+            screenX1 = screenX2;
+            screenX2 = tmp;
+        }
+        
+        // Колонка на самой границе проверяется точным пересечением, поэтому берем с запасом
+        int startX = Math.max(0, (int) Math.floor(screenX1));
+        int endX = Math.min(screenWidth - 1, (int) Math.ceil(screenX2));
+        if (startX > endX) {
+            return;
+        }
+        
+        Wall wall = bsp.getSegmentWall(segment);
+        boolean portal = wall.isPortal();
+        for (int x = startX; x <= endX; x++) {
+            if (solid[x]) {
+                continue;
+            }
+            
+            double distance = Line2D.intersectRayDistance(originX, originY, rayDirX[x], rayDirY[x], x1, y1, x2, y2);
+            if (distance == Line2D.NO_INTERSECTION || distance >= columns.distance[x]) {
+                continue;
+            }
+            
+            // Портал не закрывает колонку - за ним продолжаем искать стены
+            if (portal && columns.addPortalHit(x, wall, distance)) {
+                continue;
+            }
+            
+            if (columns.hitWall[x] == null) {
+                pending[pendingCount++] = x;
+            }
+            columns.hitWall[x] = wall;
+            columns.distance[x] = distance;
+        }
+    }
+}
\ No newline at end of file
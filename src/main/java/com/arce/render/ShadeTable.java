@@ -0,0 +1,37 @@
+package com.arce.render;
+
+/**
+ * Таблица затенения: 256 уровней яркости x 256 значений канала.
+ * Заменяет умножение каждого канала на double-коэффициент одним чтением из массива.
+ * Уровень округляется до 1/255, поэтому результат отличается от точного не больше чем на 1.
+ */
+final class ShadeTable {
+    static final int LEVELS = 256;
+    
+    private static final int[] TABLE = new int[LEVELS * 256];
+    
+    static {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int value = 0; value < 256; value++) {
+                TABLE[(level << 8) | value] = value * level / (LEVELS - 1);
+            }
+        }
+    }
+    
+    private ShadeTable() {
+    }
+    
+    /**
+     * Смещение строки таблицы для коэффициента яркости 0..1.
+     */
+    static int levelOffset(double factor) {
+        double clamped = Math.max(0.0, Math.min(1.0, factor));
+        return (int) Math.round(clamped * (LEVELS - 1)) << 8;
+    }
+    
+    static int shade(int rgb, int levelOffset) {
+        return (TABLE[levelOffset | ((rgb >> 16) & 0xFF)] << 16)
+             | (TABLE[levelOffset | ((rgb >> 8) & 0xFF)] << 8)
+             | TABLE[levelOffset | (rgb & 0xFF)];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.arce.render;
+
+import com.arce.world.Sector;
+
+import java.util.Arrays;
+
+/**
+ * Спрайты кадра, прошедшие проверку конуса обзора, в параллельных массивах.
+ * Порядок отрисовки - сортировка примитивных ключей (глубина в старших 32 битах, номер в младших),
+ * без компараторов и объектов. Экземпляр живет у рендерера, массивы только растут.
+ */
+public final class SpriteBatch {
+    private static final double MIN_DEPTH = 0.1;
+    
+    private int count;
+    private long[] keys;
+    private double[] x;
+    private double[] y;
+    private double[] width;
+    private double[] height;
+    private double[] elevation;
+    private String[] texture;
+    private int[] textureHandle;
+    private Sector[] sector;
+    
+    private double cameraX;
+    private double cameraY;
+    private double directionX;
+    private double directionY;
+    private double planeLength;
+    
+    public SpriteBatch(int capacity) {
+        keys = new long[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        width = new double[capacity];
+        height = new double[capacity];
+        elevation = new double[capacity];
+        texture = new String[capacity];
+        textureHandle = new int[capacity];
+        sector = new Sector[capacity];
+    }
+    
+    public void begin(Camera camera) {
+        count = 0;
+        cameraX = camera.getX();
+        cameraY = camera.getY();
+        directionX = camera.getDirectionX();
+        directionY = camera.getDirectionY();
+        planeLength = Math.hypot(camera.getPlaneX(), camera.getPlaneY());
+    }
+    
+    /**
+     * Добавляет спрайт, если он хотя бы частично в конусе обзора: перпендикулярная глубина
+     * положительна, а смещение вбок за вычетом половины ширины не больше depth * tan(fov/2).
+     */
+    public boolean add(double spriteX, double spriteY, double spriteWidth, double spriteHeight,
+                       double spriteElevation, String textureName, int spriteTextureHandle, Sector spriteSector) {
+        double toX = spriteX - cameraX;
+        double toY = spriteY - cameraY;
+        double depth = toX * directionX + toY * directionY;
+        if (depth < MIN_DEPTH) {
+            return false;
+        }
+        double side = directionX * toY - directionY * toX;
+        if (Math.abs(side) - spriteWidth / 2 > depth * planeLength) {
+            return false;
+        }
+        
+        if (count == keys.length) {
+            grow();
+        }
+        
+        x[count] = spriteX;
+        y[count] = spriteY;
+        width[count] = spriteWidth;
+        height[count] = spriteHeight;
+        elevation[count] = spriteElevation;
+        texture[count] = textureName;
+        textureHandle[count] = spriteTextureHandle;
+        sector[count] = spriteSector;
+        // Биты положительного float упорядочены так же, как сами числа
+        keys[count] = ((long) Float.floatToIntBits((float) depth) << 32) | count;
+        count++;
+        return true;
+    }
+    
+    private void grow() {
+        int capacity = Math.max(16, keys.length * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        elevation = Arrays.copyOf(elevation, capacity);
+        texture = Arrays.copyOf(texture, capacity);
+        textureHandle = Arrays.copyOf(textureHandle, capacity);
+        sector = Arrays.copyOf(sector, capacity);
+    }
+    
+    // После сортировки ключи идут от ближних к дальним
+    public void sort() {
+        Arrays.sort(keys, 0, count);
+    }
+    
+    // Номер спрайта, который рисуется order-м: от дальних к ближним
+    public int backToFront(int order) {
+        return (int) keys[count - 1 - order];
+    }
+    
+    public int size() { return count; }
+    public double getX(int i) { return x[i]; }
+    public double getY(int i) { return y[i]; }
+    public double getWidth(int i) { return width[i]; }
+    public double getHeight(int i) { return height[i]; }
+    public double getElevation(int i) { return elevation[i]; }
+    public String getTexture(int i) { return texture[i]; }
+    public int getTextureHandle(int i) { return textureHandle[i]; }
+    public Sector getSector(int i) { return sector[i]; }
+}
\ No newline at end of file
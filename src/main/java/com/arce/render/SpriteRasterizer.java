@@ -0,0 +1,198 @@
+package com.arce.render;
+
+import com.arce.assets.Texture;
+import com.arce.world.Sector;
+
+import java.util.Arrays;
+
+/**
+ * Растеризация спрайтов с отсечением по стенам.
+ * Спрайт проецируется по своим мировым размерам и высоте над полом сектора, как стены.
+ * В каждой колонке он закрыт сплошной стеной ближе него, а по вертикали обрезается границами
+ * порталов, которые лежат между ним и камерой (ступени и проемы, как clip-массивы в Doom).
+ * Рисуется по колонкам с шагом по текстуре в фиксированной точке.
+ */
+class SpriteRasterizer {
+    private static final int FIXED_SHIFT = 32;
+    private static final double FIXED_ONE = 1L << FIXED_SHIFT;
+    private static final double TEXEL_BIAS = 1e-5;
+    private static final double MIN_DEPTH = 0.1;
+    // Плитки по 16 колонок с самой дальней стеной - быстрый отказ для полностью закрытых спрайтов
+    private static final int TILE_SHIFT = 4;
+    
+    private int screenWidth;
+    private int screenHeight;
+    private double[] occluderDepth;
+    private double[] tileMaxDepth;
+    
+    private ColumnBuffer columns;
+    private Camera camera;
+    private int columnCount;
+    
+    // Проекция последнего спрайта
+    private double depth;
+    private double left;
+    private double right;
+    private double top;
+    private double bottom;
+    private int startX;
+    private int endX;
+    private int startY;
+    private int endY;
+    
+    SpriteRasterizer(int screenWidth, int screenHeight) {
+        resize(screenWidth, screenHeight);
+    }
+    
+    void resize(int newWidth, int newHeight) {
+        this.screenWidth = newWidth;
+        this.screenHeight = newHeight;
+        this.occluderDepth = new double[newWidth];
+        this.tileMaxDepth = new double[(newWidth >> TILE_SHIFT) + 1];
+    }
+    
+    /**
+     * Перпендикулярная глубина ближайшего полного перекрытия в каждой колонке:
+     * сплошная стена или портал, проем которого закрыт ступенями.
+     */
+    void beginFrame(ColumnBuffer columns, Camera camera) {
+        this.columns = columns;
+        this.camera = camera;
+        this.columnCount = Math.min(columns.getWidth(), screenWidth);
+        
+        Arrays.fill(occluderDepth, Double.MAX_VALUE);
+        for (int x = 0; x < columnCount; x++) {
+            if (columns.hasHit(x) || isClosed(x)) {
+                occluderDepth[x] = columns.distance[x] * camera.getCosCorrection(x);
+            }
+        }
+        
+        for (int tile = 0; tile < tileMaxDepth.length; tile++) {
+            int from = tile << TILE_SHIFT;
+            int to = Math.min(screenWidth, from + (1 << TILE_SHIFT));
+            double max = 0;
+            for (int x = from; x < to; x++) {
+                max = Math.max(max, occluderDepth[x]);
+            }
+            tileMaxDepth[tile] = max;
+        }
+    }
+    
+    private boolean isClosed(int x) {
+        int count = columns.portalCount[x];
+        if (count == 0) {
+            return false;
+        }
+        int last = x * ColumnBuffer.MAX_PORTALS + count - 1;
+        return columns.clipTop[last] > columns.clipBottom[last];
+    }
+    
+    /**
+     * Проецирует спрайт: ширина и высота в мире, нижний край на elevation над полом сектора.
+     * Возвращает false, если спрайт за камерой, вне экрана или целиком закрыт стенами.
+     */
+    boolean project(double x, double y, double width, double height, double elevation, Sector sector) {
+        double toX = x - camera.getX();
+        double toY = y - camera.getY();
+        double dirX = camera.getDirectionX();
+        double dirY = camera.getDirectionY();
+        
+        depth = toX * dirX + toY * dirY;
+        if (depth < MIN_DEPTH) {
+            return false;
+        }
+        
+        // Смещение вдоль плоскости камеры в мировых единицах и масштабы проекции, как у колонок стен
+        double side = dirX * toY - dirY * toX;
+        double planeLength = Math.hypot(camera.getPlaneX(), camera.getPlaneY());
+        double halfColumns = (screenWidth - 1) / 2.0;
+        double scaleX = halfColumns / (planeLength * depth);
+        double scaleY = camera.getProjectionScale() / depth;
+        
+        double centerX = halfColumns + side * scaleX;
+        left = centerX - width / 2 * scaleX;
+        right = centerX + width / 2 * scaleX;
+        
+        double bottomZ = (sector != null ? sector.getFloorHeight() : 0.0) + elevation;
+        double horizon = screenHeight / 2;
+        top = horizon + (camera.getHeight() - bottomZ - height) * scaleY;
+        bottom = horizon + (camera.getHeight() - bottomZ) * scaleY;
+        
+        // Колонки и строки, центры которых попадают в спрайт
+        startX = (int) Math.max(0, Math.ceil(left - 0.5));
+        endX = (int) Math.min(columnCount - 1, Math.ceil(right - 0.5) - 1);
+        startY = (int) Math.max(0, Math.ceil(top - 0.5));
+        endY = (int) Math.min(screenHeight - 1, Math.ceil(bottom - 0.5) - 1);
+        if (startX > endX || startY > endY) {
+            return false;
+        }
+        
+        for (int tile = startX >> TILE_SHIFT, last = endX >> TILE_SHIFT; tile <= last; tile++) {
+            if (depth < tileMaxDepth[tile]) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    double getDepth() { return depth; }
+    int getStartX() { return startX; }
+    int getEndX() { return endX; }
+    int getStartY() { return startY; }
+    int getEndY() { return endY; }
+    
+    /**
+     * Рисует спроецированный спрайт. Почти черные тексели (все каналы меньше 10) прозрачны.
+     */
+    void draw(int[] pixels, Texture texture, int shadeLevel) {
+        int textureWidth = texture.getWidth();
+        int textureHeight = texture.getHeight();
+        int[] columnTexels = texture.getColumnTexels();
+        
+        double uScale = textureWidth / (right - left);
+        double vScale = textureHeight / (bottom - top);
+        long uFixed = (long) (((startX + 0.5 - left) * uScale + TEXEL_BIAS) * FIXED_ONE);
+        long uStep = (long) (uScale * FIXED_ONE);
+        long vStart = (long) (((startY + 0.5 - top) * vScale + TEXEL_BIAS) * FIXED_ONE);
+        long vStep = (long) (vScale * FIXED_ONE);
+        int maxTexX = textureWidth - 1;
+        int maxTexY = textureHeight - 1;
+        
+        for (int x = startX; x <= endX; x++, uFixed += uStep) {
+            if (depth >= occluderDepth[x]) {
+                continue;
+            }
+            
+            // Вертикальные границы после всех порталов между камерой и спрайтом
+            int clipTop = 0;
+            int clipBottom = screenHeight - 1;
+            double cos = camera.getCosCorrection(x);
+            int base = x * ColumnBuffer.MAX_PORTALS;
+            for (int s = base, end = base + columns.portalCount[x]; s < end; s++) {
+                if (columns.portalDistance[s] * cos >= depth) {
+                    break;
+                }
+                clipTop = columns.clipTop[s];
+                clipBottom = columns.clipBottom[s];
+            }
+            
+            int y0 = Math.max(startY, clipTop);
+            int y1 = Math.min(endY, clipBottom);
+            if (y0 > y1) {
+                continue;
+            }
+            
+            int columnOffset = texture.getColumnOffset((int) Math.min(maxTexX, uFixed >> FIXED_SHIFT));
+            long vFixed = vStart + vStep * (y0 - startY);
+            int index = y0 * screenWidth + x;
+            for (int y = y0; y <= y1; y++) {
+                int texel = columnTexels[columnOffset + (int) Math.min(maxTexY, vFixed >> FIXED_SHIFT)];
+                if (((texel >> 16) & 0xFF) >= 10 || ((texel >> 8) & 0xFF) >= 10 || (texel & 0xFF) >= 10) {
+                    pixels[index] = ShadeTable.shade(texel, shadeLevel);
+                }
+                vFixed += vStep;
+                index += screenWidth;
+            }
+        }
+    }
+}
\ No newline at end of file
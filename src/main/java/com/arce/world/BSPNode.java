@@ -300,6 +300,63 @@ public class BSPNode {
         }
     }
     
+    public boolean raycast(double originX, double originY, double dirX, double dirY,
+                           double maxDistance, RayHit hit) {
+        hit.reset(maxDistance);
+        return raycastRecursive(originX, originY, dirX, dirY, maxDistance, 0, hit);
+    }
+    
+    private boolean raycastRecursive(double originX, double originY, double dirX, double dirY,
+                                     double maxDistance, double currentDistance, RayHit hit) {
+        if (currentDistance >= maxDistance) {
+            return false;
+        }
+        
+        if (isLeaf) {
+            Wall closestWall = null;
+            double closestDistance = maxDistance;
+            
+            for (int i = 0, n = walls.size(); i < n; i++) {
+                Wall wall = walls.get(i);
+                Line2D line = wall.getLine();
+                double distance = Line2D.intersectRayDistance(originX, originY, dirX, dirY,
+                                                              line.start.x, line.start.y, line.end.x, line.end.y);
+                if (distance != Line2D.NO_INTERSECTION && distance < closestDistance) {
+                    closestDistance = distance;
+                    closestWall = wall;
+                }
+            }
+            
+            if (closestWall == null) {
+                return false;
+            }
+            
+            hit.wall = closestWall;
+            hit.distance = closestDistance;
+            return true;
+        }
+        
+        double startSide = Line2D.whichSide(splitter.start.x, splitter.start.y, splitter.end.x, splitter.end.y,
+                                            originX, originY);
+        
+        BSPNode firstChild = startSide >= 0 ? frontChild : backChild;
+        BSPNode secondChild = startSide >= 0 ? backChild : frontChild;
+        
+        if (firstChild != null && firstChild.raycastRecursive(originX, originY, dirX, dirY,
+                                                              maxDistance, currentDistance, hit)) {
+            return true;
+        }
+        
+        double splitDistance = Line2D.intersectRayDistance(originX, originY, dirX, dirY,
+                                                           splitter.start.x, splitter.start.y,
+                                                           splitter.end.x, splitter.end.y);
+        if (splitDistance != Line2D.NO_INTERSECTION && splitDistance < maxDistance && secondChild != null) {
+            return secondChild.raycastRecursive(originX, originY, dirX, dirY, maxDistance, splitDistance, hit);
+        }
+        
+        return false;
+    }
+    
     public boolean isLeaf() { return isLeaf; }
     public List<Wall> getWalls() { return walls; }
     public Line2D getSplitter() { return splitter; }
@@ -0,0 +1,309 @@
+package com.arce.world;
+
+import com.arce.logger.EngineLogger;
+import com.arce.math.Line2D;
+import com.arce.math.Vector2D;
+
+import java.util.List;
+
+/**
+ * Блочная карта стен (как BLOCKMAP в Doom): равномерная сетка, в каждой ячейке -
+ * номера стен, чьи ограничивающие прямоугольники ее задевают.
+ * Запросы "стены рядом с точкой" и "видимость между точками" трогают только
+ * ячейки вдоль запроса, а не все стены карты.
+ *
+ * Номер стены - ее индекс в GameMap.getWalls(). Структура неизменяема после
+ * построения, поэтому запросы можно выполнять из нескольких потоков.
+ */
+public final class BlockMap {
+    public static final double DEFAULT_CELL_SIZE = 128.0;
+    
+    private static final EngineLogger logger = new EngineLogger(BlockMap.class);
+    
+    private final Wall[] walls;
+    private final double[] coords;      // x1, y1, x2, y2 на стену
+    private final int[] wallCells;      // minCol, minRow, maxCol, maxRow на стену
+    
+    private final double originX;
+    private final double originY;
+    private final double cellSize;
+    private final double invCellSize;
+    private final int columns;
+    private final int rows;
+    
+    // Списки ячеек подряд: стены ячейки c - cellWalls[cellStart[c]..cellStart[c+1])
+    private final int[] cellStart;
+    private final int[] cellWalls;
+    
+    private BlockMap(Wall[] walls, double[] coords, double originX, double originY, double cellSize,
+                     int columns, int rows) {
+        this.walls = walls;
+        this.coords = coords;
+        this.originX = originX;
+        this.originY = originY;
+        this.cellSize = cellSize;
+        this.invCellSize = 1.0 / cellSize;
+        this.columns = columns;
+        this.rows = rows;
+        
+        int count = walls.length;
+        wallCells = new int[count * 4];
+        for (int i = 0; i < count; i++) {
+            int c = i * 4;
+            wallCells[c] = columnOf(Math.min(coords[c], coords[c + 2]));
+            wallCells[c + 1] = rowOf(Math.min(coords[c + 1], coords[c + 3]));
+            wallCells[c + 2] = columnOf(Math.max(coords[c], coords[c + 2]));
+            wallCells[c + 3] = rowOf(Math.max(coords[c + 1], coords[c + 3]));
+        }
+        
+        int cellCount = columns * rows;
+        cellStart = new int[cellCount + 1];
+        for (int i = 0; i < count; i++) {
+            int c = i * 4;
+            for (int row = wallCells[c + 1]; row <= wallCells[c + 3]; row++) {
+                for (int col = wallCells[c]; col <= wallCells[c + 2]; col++) {
+                    cellStart[row * columns + col + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        
+        cellWalls = new int[cellStart[cellCount]];
+        int[] fill = new int[cellCount];
+        for (int i = 0; i < count; i++) {
+            int c = i * 4;
+            for (int row = wallCells[c + 1]; row <= wallCells[c + 3]; row++) {
+                for (int col = wallCells[c]; col <= wallCells[c + 2]; col++) {
+                    int cell = row * columns + col;
+                    cellWalls[cellStart[cell] + fill[cell]++] = i;
+                }
+            }
+        }
+    }
+    
+    public static BlockMap build(List<Wall> wallList) {
+        return build(wallList, DEFAULT_CELL_SIZE);
+    }
+    
+    public static BlockMap build(List<Wall> wallList, double cellSize) {
+        int count = wallList.size();
+        Wall[] walls = wallList.toArray(new Wall[0]);
+        double[] coords = new double[count * 4];
+        
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        
+        for (int i = 0; i < count; i++) {
+            Vector2D start = walls[i].getLine().start;
+            Vector2D end = walls[i].getLine().end;
+            coords[i * 4] = start.x;
+            coords[i * 4 + 1] = start.y;
+            coords[i * 4 + 2] = end.x;
+            coords[i * 4 + 3] = end.y;
+            
+            minX = Math.min(minX, Math.min(start.x, end.x));
+            minY = Math.min(minY, Math.min(start.y, end.y));
+            maxX = Math.max(maxX, Math.max(start.x, end.x));
+            maxY = Math.max(maxY, Math.max(start.y, end.y));
+        }
+        
+        if (count == 0) {
+            minX = minY = 0;
+            maxX = maxY = 0;
+        }
+        
+        int columns = Math.max(1, (int) Math.floor((maxX - minX) / cellSize) + 1);
+        int rows = Math.max(1, (int) Math.floor((maxY - minY) / cellSize) + 1);
+        
+        BlockMap blockMap = new BlockMap(walls, coords, minX, minY, cellSize, columns, rows);
+        logger.logInfo("Block map built: " + columns + "x" + rows + " cells, "
+                       + blockMap.cellWalls.length + " entries for " + count + " walls");
+        return blockMap;
+    }
+    
+    /**
+     * Стены, чьи ограничивающие прямоугольники пересекают прямоугольник запроса.
+     * Номера записываются в out, возвращается их количество (не больше out.length).
+     */
+    public int queryWallsInAABB(double minX, double minY, double maxX, double maxY, int[] out) {
+        return query(minX, minY, maxX, maxY, 0, 0, -1.0, out);
+    }
+    
+    /**
+     * Стены, проходящие не дальше radius от точки (x, y).
+     */
+    public int queryWallsInRadius(double x, double y, double radius, int[] out) {
+        return query(x - radius, y - radius, x + radius, y + radius, x, y, radius * radius, out);
+    }
+    
+    private int query(double minX, double minY, double maxX, double maxY,
+                      double x, double y, double radiusSquared, int[] out) {
+        int minCol = columnOf(minX);
+        int minRow = rowOf(minY);
+        int maxCol = columnOf(maxX);
+        int maxRow = rowOf(maxY);
+        
+        int count = 0;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int cell = row * columns + col;
+                
+                for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+                    int wall = cellWalls[i];
+                    int w = wall * 4;
+                    
+                    // Стена лежит в нескольких ячейках - учитываем ее только в первой общей с запросом
+                    if (col != Math.max(minCol, wallCells[w]) || row != Math.max(minRow, wallCells[w + 1])) {
+                        continue;
+                    }
+                    
+                    double x1 = coords[w];
+                    double y1 = coords[w + 1];
+                    double x2 = coords[w + 2];
+                    double y2 = coords[w + 3];
+                    
+                    if (Math.max(x1, x2) < minX || Math.min(x1, x2) > maxX
+                            || Math.max(y1, y2) < minY || Math.min(y1, y2) > maxY) {
+                        continue;
+                    }
+                    if (radiusSquared >= 0 && Line2D.distanceSquaredToSegment(x, y, x1, y1, x2, y2) > radiusSquared) {
+                        continue;
+                    }
+                    
+                    if (count == out.length) {
+                        return count;
+                    }
+                    out[count++] = wall;
+                }
+            }
+        }
+        return count;
+    }
+    
+    public boolean lineOfSight(Vector2D a, Vector2D b) {
+        return lineOfSight(a.x, a.y, b.x, b.y);
+    }
+    
+    /**
+     * true, если отрезок a-b не пересекает ни одной сплошной стены. Порталы видимость не перекрывают.
+     * Ячейки обходятся вдоль отрезка (Amanatides-Woo), поэтому стоимость зависит от длины отрезка.
+     */
+    public boolean lineOfSight(double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        
+        // Отсекаем отрезок по границам сетки - снаружи стен нет
+        double gridMaxX = originX + columns * cellSize;
+        double gridMaxY = originY + rows * cellSize;
+        double tEnter = 0.0;
+        double tExit = 1.0;
+        
+        if (dx != 0) {
+            double t1 = (originX - ax) / dx;
+            double t2 = (gridMaxX - ax) / dx;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        } else if (ax < originX || ax > gridMaxX) {
+            return true;
+        }
+        if (dy != 0) {
+            double t1 = (originY - ay) / dy;
+            double t2 = (gridMaxY - ay) / dy;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        } else if (ay < originY || ay > gridMaxY) {
+            return true;
+        }
+        if (tEnter > tExit) {
+            return true;
+        }
+        
+        double startX = ax + dx * tEnter;
+        double startY = ay + dy * tEnter;
+        int col = columnOf(startX);
+        int row = rowOf(startY);
+        int endCol = columnOf(ax + dx * tExit);
+        int endRow = rowOf(ay + dy * tExit);
+        
+        // Для проверки стен нужен единичный луч: порог вырожденности в intersectRayDistance абсолютный
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) {
+            return true;
+        }
+        double dirX = dx / length;
+        double dirY = dy / length;
+        
+        int stepCol = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        
+        // Параметр t, на котором отрезок пересекает следующую границу ячейки по x и по y
+        double tDeltaX = dx != 0 ? cellSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = dy != 0 ? cellSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+        double nextBoundaryX = originX + (dx > 0 ? col + 1 : col) * cellSize;
+        double nextBoundaryY = originY + (dy > 0 ? row + 1 : row) * cellSize;
+        double tMaxX = dx != 0 ? (nextBoundaryX - ax) / dx : Double.POSITIVE_INFINITY;
+        double tMaxY = dy != 0 ? (nextBoundaryY - ay) / dy : Double.POSITIVE_INFINITY;
+        
+        for (int steps = columns + rows; steps >= 0; steps--) {
+            if (cellBlocksSegment(row * columns + col, ax, ay, dirX, dirY, length)) {
+                return false;
+            }
+            if (col == endCol && row == endRow) {
+                break;
+            }
+            
+            if (tMaxX < tMaxY) {
+                col += stepCol;
+                tMaxX += tDeltaX;
+            } else {
+                row += stepRow;
+                tMaxY += tDeltaY;
+            }
+            
+            if (col < 0 || col >= columns || row < 0 || row >= rows) {
+                break;
+            }
+        }
+        
+        return true;
+    }
+    
+    private boolean cellBlocksSegment(int cell, double ax, double ay, double dirX, double dirY, double length) {
+        for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+            int wall = cellWalls[i];
+            if (!walls[wall].isSolid()) {
+                continue;
+            }
+            
+            int w = wall * 4;
+            double t = Line2D.intersectRayDistance(ax, ay, dirX, dirY, coords[w], coords[w + 1], coords[w + 2], coords[w + 3]);
+            if (t != Line2D.NO_INTERSECTION && t <= length) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private int columnOf(double x) {
+        int col = (int) Math.floor((x - originX) * invCellSize);
+        return Math.max(0, Math.min(columns - 1, col));
+    }
+    
+    private int rowOf(double y) {
+        int row = (int) Math.floor((y - originY) * invCellSize);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+    
+    // Координаты стен подряд (x1, y1, x2, y2) - для CircleMover без обращения к Line2D
+    double[] getCoords() { return coords; }
+    
+    public Wall getWall(int id) { return walls[id]; }
+    public int getWallCount() { return walls.length; }
+    public double getCellSize() { return cellSize; }
+    public int getColumns() { return columns; }
+    public int getRows() { return rows; }
+}
\ No newline at end of file
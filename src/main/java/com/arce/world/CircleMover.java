@@ -0,0 +1,181 @@
+package com.arce.world;
+
+/**
+ * Непрерывное перемещение круга среди стен со скольжением.
+ * Круг проходит весь путь за шаг, поэтому не проскакивает тонкие стены на большой скорости.
+ * При касании остаток движения проецируется на стену, и попыток не больше MAX_ITERATIONS.
+ *
+ * Как и RayHit, экземпляр хранит результат и буфер кандидатов, поэтому на каждый
+ * поток нужен свой; сам ход ничего не выделяет.
+ */
+public final class CircleMover {
+    public static final int MAX_ITERATIONS = 4;
+    
+    // Зазор, на котором круг останавливается перед стеной, - чтобы следующий шаг не начинался внутри нее
+    private static final double SKIN = 1e-3;
+    private static final double MIN_MOVE_SQUARED = 1e-12;
+    
+    public double x;
+    public double y;
+    public boolean blocked;     // было ли хоть одно касание за ход
+    
+    private int[] candidates = new int[64];
+    
+    // Касание внутри шага: время и нормаль от стены к кругу
+    private double hitTime;
+    private double hitNormalX;
+    private double hitNormalY;
+    
+    /**
+     * Сдвигает круг из (startX, startY) на (dx, dy). Результат - в полях x, y.
+     */
+    public void move(BlockMap blockMap, double startX, double startY, double radius, double dx, double dy) {
+        x = startX;
+        y = startY;
+        blocked = false;
+        
+        double[] coords = blockMap.getCoords();
+        
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            if (dx * dx + dy * dy < MIN_MOVE_SQUARED) {
+                return;
+            }
+            
+            int count = queryPath(blockMap, radius, dx, dy);
+            
+            hitTime = 1.0;
+            boolean hit = false;
+            for (int i = 0; i < count; i++) {
+                int wall = candidates[i];
+                if (!blockMap.getWall(wall).isSolid()) {
+                    continue;
+                }
+                int w = wall * 4;
+                hit |= sweepSegment(coords[w], coords[w + 1], coords[w + 2], coords[w + 3], radius, dx, dy);
+            }
+            
+            if (!hit) {
+                x += dx;
+                y += dy;
+                return;
+            }
+            
+            blocked = true;
+            
+            // Доходим до стены с небольшим зазором
+            double length = Math.sqrt(dx * dx + dy * dy);
+            double t = Math.max(0.0, hitTime - SKIN / length);
+            x += dx * t;
+            y += dy * t;
+            
+            // Остаток движения скользит вдоль стены
+            double restX = dx * (1.0 - t);
+            double restY = dy * (1.0 - t);
+            double into = restX * hitNormalX + restY * hitNormalY;
+            dx = restX - hitNormalX * into;
+            dy = restY - hitNormalY * into;
+        }
+    }
+    
+    // Стены вокруг всего отрезка пути; буфер растет, только если кандидатов больше, чем было
+    private int queryPath(BlockMap blockMap, double radius, double dx, double dy) {
+        double minX = Math.min(x, x + dx) - radius;
+        double minY = Math.min(y, y + dy) - radius;
+        double maxX = Math.max(x, x + dx) + radius;
+        double maxY = Math.max(y, y + dy) + radius;
+        
+        int count = blockMap.queryWallsInAABB(minX, minY, maxX, maxY, candidates);
+        while (count == candidates.length) {
+            candidates = new int[candidates.length * 2];
+            count = blockMap.queryWallsInAABB(minX, minY, maxX, maxY, candidates);
+        }
+        return count;
+    }
+    
+    /**
+     * Время касания круга, движущегося на (dx, dy), с отрезком: сначала с его внутренней
+     * частью, затем с концами. Запоминает касание, если оно раньше hitTime.
+     * Касания при движении от стены не считаются - так круг, уже задевший стену, может от нее уйти.
+     */
+    private boolean sweepSegment(double x1, double y1, double x2, double y2, double radius, double dx, double dy) {
+        double segX = x2 - x1;
+        double segY = y2 - y1;
+        double lengthSquared = segX * segX + segY * segY;
+        if (lengthSquared == 0) {
+            return sweepPoint(x1, y1, radius, dx, dy);
+        }
+        
+        double invLength = 1.0 / Math.sqrt(lengthSquared);
+        double normalX = -segY * invLength;
+        double normalY = segX * invLength;
+        
+        // Нормаль смотрит на сторону, где находится центр круга
+        double distance = (x - x1) * normalX + (y - y1) * normalY;
+        if (distance < 0) {
+            distance = -distance;
+            normalX = -normalX;
+            normalY = -normalY;
+        }
+        
+        double approach = dx * normalX + dy * normalY;
+        if (approach < 0) {
+            double t = Math.max(0.0, (distance - radius) / -approach);
+            if (t < hitTime) {
+                // Точка касания должна лежать внутри отрезка, иначе касаемся конца
+                double contactX = x + dx * t - x1;
+                double contactY = y + dy * t - y1;
+                double along = (contactX * segX + contactY * segY) / lengthSquared;
+                if (along >= 0 && along <= 1) {
+                    hitTime = t;
+                    hitNormalX = normalX;
+                    hitNormalY = normalY;
+                    return true;
+                }
+            }
+        }
+        
+        boolean hitStart = sweepPoint(x1, y1, radius, dx, dy);
+        boolean hitEnd = sweepPoint(x2, y2, radius, dx, dy);
+        return hitStart || hitEnd;
+    }
+    
+    // Касание круга с точкой: |p + d*t - e| = radius
+    private boolean sweepPoint(double px, double py, double radius, double dx, double dy) {
+        double offsetX = x - px;
+        double offsetY = y - py;
+        
+        double b = offsetX * dx + offsetY * dy;
+        if (b >= 0) {
+            return false;
+        }
+        
+        double a = dx * dx + dy * dy;
+        double c = offsetX * offsetX + offsetY * offsetY - radius * radius;
+        double t;
+        if (c <= 0) {
+            t = 0.0;
+        } else {
+            double discriminant = b * b - a * c;
+            if (discriminant < 0) {
+                return false;
+            }
+            t = (-b - Math.sqrt(discriminant)) / a;
+        }
+        
+        if (t >= hitTime) {
+            return false;
+        }
+        
+        double contactX = offsetX + dx * t;
+        double contactY = offsetY + dy * t;
+        double contactLength = Math.sqrt(contactX * contactX + contactY * contactY);
+        if (contactLength == 0) {
+            return false;
+        }
+        
+        hitTime = t;
+        hitNormalX = contactX / contactLength;
+        hitNormalY = contactY / contactLength;
+        return true;
+    }
+}
\ No newline at end of file
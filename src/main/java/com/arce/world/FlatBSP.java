@@ -0,0 +1,342 @@
+package com.arce.world;
+
+import com.arce.math.Line2D;
+import com.arce.logger.EngineLogger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Скомпилированное неизменяемое BSP-дерево. Узлы, разделяющие прямые и отрезки стен
+ * упакованы в примитивные массивы, обход итеративный с явным стеком.
+ * Строится из BSPNode и дает те же результаты трассировки, что и исходное дерево.
+ */
+public final class FlatBSP {
+    public static final int NONE = -1;
+    
+    private static final EngineLogger logger = new EngineLogger(FlatBSP.class);
+    
+    // Узлы: 4 координаты разделителя на узел (x1, y1, x2, y2)
+    private final double[] splitters;
+    private final int[] frontChild;
+    private final int[] backChild;
+    // Для листа - диапазон в массиве отрезков, для внутреннего узла leafStart == NONE
+    private final int[] leafStart;
+    private final int[] leafCount;
+    // Рамка всех отрезков поддерева узла (minX, minY, maxX, maxY); у пустого поддерева она вывернута
+    private final double[] bounds;
+    
+    // Отрезки стен: 4 координаты на стену, подряд по листам
+    private final double[] segments;
+    private final Wall[] segmentWalls;
+    
+    private final int nodeCount;
+    private final int depth;
+    private int maxLeafSize;
+    
+    private FlatBSP(int nodeCount, int segmentCount, int depth) {
+        this.nodeCount = nodeCount;
+        this.depth = depth;
+        this.splitters = new double[nodeCount * 4];
+        this.frontChild = new int[nodeCount];
+        this.backChild = new int[nodeCount];
+        this.leafStart = new int[nodeCount];
+        this.leafCount = new int[nodeCount];
+        this.bounds = new double[nodeCount * 4];
+        this.segments = new double[segmentCount * 4];
+        this.segmentWalls = new Wall[segmentCount];
+    }
+    
+    public static FlatBSP compile(BSPNode root) {
+        if (root == null) {
+            return new FlatBSP(0, 0, 0);
+        }
+        
+        List<BSPNode> nodes = new ArrayList<>();
+        List<int[]> children = new ArrayList<>();
+        int[] counts = new int[2];
+        collect(root, nodes, children, counts, 1);
+        
+        FlatBSP flat = new FlatBSP(nodes.size(), counts[0], counts[1]);
+        int segmentIndex = 0;
+        
+        // Узлы в порядке прямого обхода: корень имеет индекс 0
+        for (int i = 0; i < nodes.size(); i++) {
+            BSPNode node = nodes.get(i);
+            
+            if (node.isLeaf()) {
+                flat.leafStart[i] = segmentIndex;
+                flat.leafCount[i] = node.getWalls().size();
+                flat.maxLeafSize = Math.max(flat.maxLeafSize, flat.leafCount[i]);
+                flat.frontChild[i] = NONE;
+                flat.backChild[i] = NONE;
+                
+                for (Wall wall : node.getWalls()) {
+                    Line2D line = wall.getLine();
+                    int base = segmentIndex * 4;
+                    flat.segments[base] = line.start.x;
+                    flat.segments[base + 1] = line.start.y;
+                    flat.segments[base + 2] = line.end.x;
+                    flat.segments[base + 3] = line.end.y;
+                    flat.segmentWalls[segmentIndex] = wall;
+                    segmentIndex++;
+                }
+            } else {
+                Line2D splitter = node.getSplitter();
+                int base = i * 4;
+                flat.splitters[base] = splitter.start.x;
+                flat.splitters[base + 1] = splitter.start.y;
+                flat.splitters[base + 2] = splitter.end.x;
+                flat.splitters[base + 3] = splitter.end.y;
+                flat.leafStart[i] = NONE;
+                flat.frontChild[i] = children.get(i)[0];
+                flat.backChild[i] = children.get(i)[1];
+            }
+        }
+        
+        flat.computeBounds();
+        
+        logger.logInfo("Flat BSP compiled: {} nodes, {} segments, depth {}",
+                      flat.nodeCount, counts[0], flat.depth);
+        return flat;
+    }
+    
+    /**
+     * Прямой обход: добавляет узел и его поддеревья, запоминая индексы детей (front, back).
+     * Возвращает индекс узла.
+     */
+    private static int collect(BSPNode node, List<BSPNode> nodes, List<int[]> children, int[] counts, int level) {
+        int index = nodes.size();
+        int[] links = {NONE, NONE};
+        nodes.add(node);
+        children.add(links);
+        counts[1] = Math.max(counts[1], level);
+        
+        if (node.isLeaf()) {
+            counts[0] += node.getWalls().size();
+            return index;
+        }
+        
+        if (node.getFrontChild() != null) {
+            links[0] = collect(node.getFrontChild(), nodes, children, counts, level + 1);
+        }
+        if (node.getBackChild() != null) {
+            links[1] = collect(node.getBackChild(), nodes, children, counts, level + 1);
+        }
+        return index;
+    }
+    
+    // Дети идут после родителя, поэтому обратный проход собирает рамки снизу вверх
+    private void computeBounds() {
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int base = node * 4;
+            bounds[base] = Double.POSITIVE_INFINITY;
+            bounds[base + 1] = Double.POSITIVE_INFINITY;
+            bounds[base + 2] = Double.NEGATIVE_INFINITY;
+            bounds[base + 3] = Double.NEGATIVE_INFINITY;
+            
+            if (leafStart[node] != NONE) {
+                for (int i = leafStart[node], end = i + leafCount[node]; i < end; i++) {
+                    int segment = i * 4;
+                    includeInBounds(base, segments[segment], segments[segment + 1]);
+                    includeInBounds(base, segments[segment + 2], segments[segment + 3]);
+                }
+                continue;
+            }
+            
+            includeChildBounds(base, frontChild[node]);
+            includeChildBounds(base, backChild[node]);
+        }
+    }
+    
+    private void includeChildBounds(int base, int child) {
+        if (child != NONE && bounds[child * 4] <= bounds[child * 4 + 2]) {
+            int childBase = child * 4;
+            includeInBounds(base, bounds[childBase], bounds[childBase + 1]);
+            includeInBounds(base, bounds[childBase + 2], bounds[childBase + 3]);
+        }
+    }
+    
+    private void includeInBounds(int base, double x, double y) {
+        bounds[base] = Math.min(bounds[base], x);
+        bounds[base + 1] = Math.min(bounds[base + 1], y);
+        bounds[base + 2] = Math.max(bounds[base + 2], x);
+        bounds[base + 3] = Math.max(bounds[base + 3], y);
+    }
+    
+    /**
+     * Итеративный аналог BSPNode.raycast: сначала ближняя к началу луча сторона,
+     * дальняя - только если луч пересекает разделитель. Состояние обхода хранится в RayHit,
+     * поэтому один FlatBSP можно трассировать из нескольких потоков одновременно,
+     * а луч - продолжить за найденной стеной вызовом {@link #nextHit(RayHit)}.
+     */
+    public boolean raycast(double originX, double originY, double dirX, double dirY,
+                           double maxDistance, RayHit hit) {
+        hit.ensureCapacity(depth + 1, maxLeafSize);
+        hit.originX = originX;
+        hit.originY = originY;
+        hit.dirX = dirX;
+        hit.dirY = dirY;
+        hit.maxDistance = maxDistance;
+        hit.leafCount = 0;
+        hit.leafNext = 0;
+        hit.top = 0;
+        if (nodeCount > 0 && maxDistance > 0) {
+            hit.stack[hit.top++] = 0;
+        }
+        return nextHit(hit);
+    }
+    
+    /**
+     * Следующее по лучу пересечение после последнего выданного (или равное ему по расстоянию).
+     * Обход продолжается с того же места, листья и стены в них выдаются спереди назад.
+     */
+    public boolean nextHit(RayHit hit) {
+        while (hit.leafNext == hit.leafCount) {
+            if (hit.top == 0) {
+                hit.reset(hit.maxDistance);
+                return false;
+            }
+            
+            int node = hit.stack[--hit.top];
+            if (leafStart[node] != NONE) {
+                collectLeafHits(node, hit);
+                continue;
+            }
+            
+            int base = node * 4;
+            double x1 = splitters[base];
+            double y1 = splitters[base + 1];
+            double x2 = splitters[base + 2];
+            double y2 = splitters[base + 3];
+            
+            double startSide = Line2D.whichSide(x1, y1, x2, y2, hit.originX, hit.originY);
+            int first = startSide >= 0 ? frontChild[node] : backChild[node];
+            int second = startSide >= 0 ? backChild[node] : frontChild[node];
+            
+            // Дальняя сторона кладется первой, чтобы ближняя была обработана раньше
+            if (second != NONE) {
+                double splitDistance = Line2D.intersectRayDistance(hit.originX, hit.originY, hit.dirX, hit.dirY,
+                                                                   x1, y1, x2, y2);
+                if (splitDistance != Line2D.NO_INTERSECTION && splitDistance < hit.maxDistance) {
+                    hit.stack[hit.top++] = second;
+                }
+            }
+            if (first != NONE) {
+                hit.stack[hit.top++] = first;
+            }
+        }
+        
+        int next = hit.leafNext++;
+        hit.wall = segmentWalls[hit.leafSegments[next]];
+        hit.distance = hit.leafDistances[next];
+        return true;
+    }
+    
+    // Все пересечения листа ближе maxDistance, вставками по возрастанию расстояния (равные - в порядке стен)
+    private void collectLeafHits(int node, RayHit hit) {
+        int[] hitSegments = hit.leafSegments;
+        double[] hitDistances = hit.leafDistances;
+        int count = 0;
+        
+        int end = leafStart[node] + leafCount[node];
+        for (int i = leafStart[node]; i < end; i++) {
+            int base = i * 4;
+            double distance = Line2D.intersectRayDistance(hit.originX, hit.originY, hit.dirX, hit.dirY,
+                                                          segments[base], segments[base + 1],
+                                                          segments[base + 2], segments[base + 3]);
+            if (distance == Line2D.NO_INTERSECTION || distance >= hit.maxDistance) {
+                continue;
+            }
+            
+            int j = count++;
+            while (j > 0 && hitDistances[j - 1] > distance) {
+                hitSegments[j] = hitSegments[j - 1];
+                hitDistances[j] = hitDistances[j - 1];
+                j--;
+            }
+            hitSegments[j] = i;
+            hitDistances[j] = distance;
+        }
+        
+        hit.leafCount = count;
+        hit.leafNext = 0;
+    }
+    
+    /**
+     * Обход листьев спереди назад относительно точки обзора (обратный порядок к BSPNode.traverse).
+     * Обход прекращается, как только посетитель вернет false.
+     */
+    public void traverseFrontToBack(double viewX, double viewY, int[] stack, LeafVisitor visitor) {
+        traverseFrontToBack(viewX, viewY, Double.POSITIVE_INFINITY, stack, visitor);
+    }
+    
+    /**
+     * То же, но поддеревья, все отрезки которых дальше maxDistance от точки обзора, пропускаются.
+     */
+    public void traverseFrontToBack(double viewX, double viewY, double maxDistance, int[] stack, LeafVisitor visitor) {
+        if (nodeCount == 0) {
+            return;
+        }
+        
+        double maxDistanceSq = maxDistance * maxDistance;
+        int top = 0;
+        stack[top++] = 0;
+        
+        while (top > 0) {
+            int node = stack[--top];
+            
+            if (distanceSqToBounds(node, viewX, viewY) > maxDistanceSq) {
+                continue;
+            }
+            
+            if (leafStart[node] != NONE) {
+                if (!visitor.visitLeaf(leafStart[node], leafCount[node])) {
+                    return;
+                }
+                continue;
+            }
+            
+            int base = node * 4;
+            double side = Line2D.whichSide(splitters[base], splitters[base + 1],
+                                           splitters[base + 2], splitters[base + 3], viewX, viewY);
+            int near = side >= 0 ? frontChild[node] : backChild[node];
+            int far = side >= 0 ? backChild[node] : frontChild[node];
+            
+            if (far != NONE) {
+                stack[top++] = far;
+            }
+            if (near != NONE) {
+                stack[top++] = near;
+            }
+        }
+    }
+    
+    private double distanceSqToBounds(int node, double x, double y) {
+        int base = node * 4;
+        double dx = Math.max(0, Math.max(bounds[base] - x, x - bounds[base + 2]));
+        double dy = Math.max(0, Math.max(bounds[base + 1] - y, y - bounds[base + 3]));
+        return dx * dx + dy * dy;
+    }
+    
+    public int[] createTraversalStack() {
+        return new int[depth + 1];
+    }
+    
+    // Координаты отрезков (x1, y1, x2, y2 подряд). Массив общий - только для чтения
+    public double[] getSegmentCoords() { return segments; }
+    public Wall getSegmentWall(int segment) { return segmentWalls[segment]; }
+    
+    public int getNodeCount() { return nodeCount; }
+    public int getSegmentCount() { return segmentWalls.length; }
+    public int getDepth() { return depth; }
+    
+    public interface LeafVisitor {
+        boolean visitLeaf(int firstSegment, int segmentCount);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("FlatBSP(nodes: %d, segments: %d, depth: %d)",
+                           nodeCount, segmentWalls.length, depth);
+    }
+}
\ No newline at end of file
@@ -1,18 +1,25 @@
 package com.arce.world;
 
+import com.arce.math.Line2D;
 import com.arce.math.Vector2D;
 import com.arce.math.Ray2D;
 import com.arce.logger.EngineLogger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class GameMap {
     private final EngineLogger logger;
     private List<Sector> sectors;
     private List<Wall> walls;
     private BSPNode bspRoot;
+    private FlatBSP flatBsp;
+    private SectorIndex sectorIndex;
+    private BlockMap blockMap;
     private Map<Integer, Sector> sectorMap;
     private Vector2D playerStartPosition;
     private double playerStartAngle;
@@ -27,16 +34,32 @@ public class GameMap {
     }
     
     public void addSector(Sector sector) {
+        sector.setIndex(sectors.size());
         sectors.add(sector);
         sectorMap.put(sector.getId(), sector);
+        // Индекс перестраивается в buildBSP, до этого - полный перебор
+        sectorIndex = null;
         logger.logDebug("Added sector: " + sector);
     }
     
     public void addWall(Wall wall) {
         walls.add(wall);
+        // Блочная карта перестраивается в buildBSP
+        blockMap = null;
         logger.logDebug("Added wall: " + wall);
     }
     
+    /**
+     * Блочная карта для столкновений. Если buildBSP не вызывался или после него добавлялись стены,
+     * она строится здесь по текущим стенам: столкновения не должны зависеть от того, собрана ли карта.
+     */
+    public BlockMap requireBlockMap() {
+        if (blockMap == null) {
+            blockMap = BlockMap.build(walls);
+        }
+        return blockMap;
+    }
+    
     public void buildBSP() {
         logger.logStart("buildBSP");
         
@@ -47,14 +70,82 @@ public class GameMap {
         
         int maxWallsPerNode = 8;
         bspRoot = BSPNode.buildBSP(walls, maxWallsPerNode);
+        flatBsp = FlatBSP.compile(bspRoot);
+        sectorIndex = SectorIndex.build(sectors);
+        blockMap = BlockMap.build(walls);
+        buildSectorGraph();
         
         logger.logSuccess("BSP tree built with " + walls.size() + " walls");
         logger.logEnd("buildBSP");
     }
     
-    public Sector findSector(Vector2D position) {
+    // Граф смежности секторов по порталам
+    private void buildSectorGraph() {
+        Map<Sector, Set<Sector>> adjacency = new LinkedHashMap<>();
         for (Sector sector : sectors) {
-            if (sector.containsPoint(position)) {
+            adjacency.put(sector, new LinkedHashSet<>());
+        }
+        
+        int links = 0;
+        for (Wall wall : walls) {
+            Sector front = wall.getFrontSector();
+            Sector back = wall.getBackSector();
+            if (!wall.isPortal() || front == null || front == back) {
+                continue;
+            }
+            if (adjacency.computeIfAbsent(front, s -> new LinkedHashSet<>()).add(back)) {
+                links++;
+            }
+            adjacency.computeIfAbsent(back, s -> new LinkedHashSet<>()).add(front);
+        }
+        
+        for (Map.Entry<Sector, Set<Sector>> entry : adjacency.entrySet()) {
+            entry.getKey().setNeighbours(entry.getValue().toArray(new Sector[0]));
+        }
+        
+        logger.logDebug("Sector graph built: " + links + " portal links");
+    }
+    
+    public Sector findSector(Vector2D position) {
+        return findSector(position.x, position.y);
+    }
+    
+    public Sector findSector(Vector2D position, Sector hint) {
+        return findSector(position.x, position.y, hint);
+    }
+    
+    /**
+     * Поиск с подсказкой: точка обычно рядом с прошлым положением, поэтому сначала
+     * проверяются сектор-подсказка и его соседи по порталам, затем общий индекс.
+     */
+    public Sector findSector(double x, double y, Sector hint) {
+        if (hint != null) {
+            if (hint.containsPoint(x, y)) {
+                return hint;
+            }
+            for (Sector neighbour : hint.getNeighbours()) {
+                if (neighbour.containsPoint(x, y)) {
+                    return neighbour;
+                }
+            }
+        }
+        return findSector(x, y);
+    }
+    
+    public Sector findSector(double x, double y) {
+        if (sectorIndex != null) {
+            return sectorIndex.find(x, y);
+        }
+        return findSectorBruteForce(x, y);
+    }
+    
+    /**
+     * Полный перебор секторов - используется до построения индекса и для сверки с ним.
+     */
+    public Sector findSectorBruteForce(double x, double y) {
+        for (int i = 0, n = sectors.size(); i < n; i++) {
+            Sector sector = sectors.get(i);
+            if (sector.containsPoint(x, y)) {
                 return sector;
             }
         }
@@ -62,22 +153,40 @@ public class GameMap {
     }
     
     public RaycastResult raycast(Ray2D ray, double maxDistance) {
-        if (bspRoot == null) {
+        if (flatBsp == null) {
             logger.logError("BSP tree not built, cannot raycast", new RuntimeException("BSP not built"));
             return null;
         }
         
-        Wall hitWall = bspRoot.raycast(ray, maxDistance);
-        if (hitWall != null) {
-            var intersection = hitWall.getLine().intersectRay(ray);
-            if (intersection != null) {
-                return new RaycastResult(intersection.point, intersection.distance, hitWall, ray);
-            }
+        RayHit hit = new RayHit();
+        if (flatBsp.raycast(ray.origin.x, ray.origin.y, ray.direction.x, ray.direction.y, maxDistance, hit)) {
+            return new RaycastResult(ray.getPoint(hit.distance), hit.distance, hit.wall, ray);
         }
         
         return null;
     }
     
+    public boolean raycast(double originX, double originY, double dirX, double dirY,
+                           double maxDistance, RayHit hit) {
+        if (flatBsp == null) {
+            hit.reset(maxDistance);
+            return false;
+        }
+        
+        return flatBsp.raycast(originX, originY, dirX, dirY, maxDistance, hit);
+    }
+    
+    /**
+     * Следующая стена на луче последнего вызова raycast с этим RayHit - например, за порталом.
+     */
+    public boolean nextHit(RayHit hit) {
+        if (flatBsp == null) {
+            return false;
+        }
+        
+        return flatBsp.nextHit(hit);
+    }
+    
     public void traverseForRendering(Vector2D viewPoint, BSPNode.BSPTraversalCallback callback) {
         if (bspRoot != null) {
             bspRoot.traverse(viewPoint, callback);
@@ -149,28 +258,28 @@ public class GameMap {
         room2.setFloorHeight(32);
         room2.setCeilingHeight(96);
         
+        // Общая стена между комнатами с проемом-порталом посередине
+        Wall sharedLower = new Wall(new Vector2D(150, 0), new Vector2D(150, 30));
+        Wall sharedUpper = new Wall(new Vector2D(150, 70), new Vector2D(150, 100));
+        Wall portal = new Wall(new Vector2D(150, 30), new Vector2D(150, 70));
+        portal.setSolid(false);
+        portal.setFrontSector(room1);
+        portal.setBackSector(room2);
+        
         // Стены для комнаты 1
         Wall[] room1Walls = {
             new Wall(new Vector2D(0, 0), new Vector2D(150, 0)),
-            new Wall(new Vector2D(150, 0), new Vector2D(150, 100)),
             new Wall(new Vector2D(150, 100), new Vector2D(0, 100)),
             new Wall(new Vector2D(0, 100), new Vector2D(0, 0))
         };
         
         // Стены для комнаты 2
         Wall[] room2Walls = {
-            new Wall(new Vector2D(200, 0), new Vector2D(350, 0)),
-            new Wall(new Vector2D(350, 0), new Vector2D(350, 100)),
-            new Wall(new Vector2D(350, 100), new Vector2D(200, 100)),
-            new Wall(new Vector2D(200, 100), new Vector2D(200, 0))
+            new Wall(new Vector2D(150, 0), new Vector2D(300, 0)),
+            new Wall(new Vector2D(300, 0), new Vector2D(300, 100)),
+            new Wall(new Vector2D(300, 100), new Vector2D(150, 100))
         };
         
-        // Соединяющий коридор (портал)
-        Wall portal = new Wall(new Vector2D(150, 40), new Vector2D(200, 40));
-        portal.setSolid(false);
-        portal.setFrontSector(room1);
-        portal.setBackSector(room2);
-        
         // Добавляем все к карте
         for (Wall wall : room1Walls) {
             room1.addWall(wall);
@@ -182,7 +291,12 @@ public class GameMap {
             map.addWall(wall);
         }
         
-        map.addWall(portal);
+        for (Wall wall : new Wall[] { sharedLower, portal, sharedUpper }) {
+            room1.addWall(wall);
+            room2.addWall(wall);
+            map.addWall(wall);
+        }
+        
         map.addSector(room1);
         map.addSector(room2);
         
@@ -193,9 +307,34 @@ public class GameMap {
         return map;
     }
     
+    /**
+     * Рамка всех стен карты: minX, minY, maxX, maxY. У карты без стен - нули.
+     */
+    public double[] getWallBounds() {
+        if (walls.isEmpty()) {
+            return new double[4];
+        }
+        
+        double[] bounds = {
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY
+        };
+        for (int i = 0, n = walls.size(); i < n; i++) {
+            Line2D line = walls.get(i).getLine();
+            bounds[0] = Math.min(bounds[0], Math.min(line.start.x, line.end.x));
+            bounds[1] = Math.min(bounds[1], Math.min(line.start.y, line.end.y));
+            bounds[2] = Math.max(bounds[2], Math.max(line.start.x, line.end.x));
+            bounds[3] = Math.max(bounds[3], Math.max(line.start.y, line.end.y));
+        }
+        return bounds;
+    }
+    
     public List<Sector> getSectors() { return sectors; }
     public List<Wall> getWalls() { return walls; }
     public BSPNode getBspRoot() { return bspRoot; }
+    public FlatBSP getFlatBsp() { return flatBsp; }
+    public SectorIndex getSectorIndex() { return sectorIndex; }
+    public BlockMap getBlockMap() { return blockMap; }
     
     public Vector2D getPlayerStartPosition() { return playerStartPosition; }
     public void setPlayerStartPosition(Vector2D position) { 
@@ -0,0 +1,53 @@
+package com.arce.world;
+
+/**
+ * Изменяемый результат трассировки луча. Один экземпляр на поток,
+ * переиспользуется между лучами, чтобы не создавать объекты на каждую колонку.
+ * Заодно хранит состояние обхода FlatBSP этого потока: стек и отсортированные
+ * пересечения текущего листа, чтобы луч можно было продолжить за найденной стеной.
+ */
+public class RayHit {
+    public Wall wall;
+    public double distance;
+    
+    // Луч текущего обхода
+    double originX;
+    double originY;
+    double dirX;
+    double dirY;
+    double maxDistance;
+    
+    int[] stack = new int[32];
+    int top;
+    
+    // Пересечения текущего листа по возрастанию расстояния; [leafNext, leafCount) еще не выданы
+    int[] leafSegments = new int[8];
+    double[] leafDistances = new double[8];
+    int leafCount;
+    int leafNext;
+    
+    void ensureCapacity(int stackCapacity, int leafCapacity) {
+        if (stack.length < stackCapacity) {
+            stack = new int[Math.max(stackCapacity, stack.length * 2)];
+        }
+        if (leafSegments.length < leafCapacity) {
+            int capacity = Math.max(leafCapacity, leafSegments.length * 2);
+            leafSegments = new int[capacity];
+            leafDistances = new double[capacity];
+        }
+    }
+    
+    public void reset(double maxDistance) {
+        this.wall = null;
+        this.distance = maxDistance;
+    }
+    
+    public boolean hasHit() {
+        return wall != null;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("RayHit(distance: %.2f, wall: %s)", distance, wall);
+    }
+}
\ No newline at end of file
@@ -12,6 +12,8 @@ public class Sector {
     private int floorTextureId;
     private int ceilingTextureId;
     private int lightLevel;      // 0-255
+    private Sector[] neighbours; // соседи через порталы, заполняет GameMap
+    private int index = -1;      // номер в списке секторов карты
     
     public Sector(int id) {
         this.id = id;
@@ -21,6 +23,7 @@ public class Sector {
         this.floorTextureId = 0;
         this.ceilingTextureId = 0;
         this.lightLevel = 255;
+        this.neighbours = new Sector[0];
     }
     
     public void addWall(Wall wall) {
@@ -31,32 +34,30 @@ public class Sector {
     }
     
     public boolean containsPoint(Vector2D point) {
-        int windingNumber = 0;
+        return containsPoint(point.x, point.y);
+    }
+    
+    /**
+     * Проверка четности пересечений. Не зависит от направления стен: общая для двух
+     * секторов стена (портал) может быть направлена только по обходу одного из них.
+     */
+    public boolean containsPoint(double x, double y) {
+        boolean inside = false;
         
-        for (Wall wall : walls) {
+        for (int i = 0, n = walls.size(); i < n; i++) {
+            Wall wall = walls.get(i);
             Vector2D start = wall.getLine().start;
             Vector2D end = wall.getLine().end;
             
-            if (start.y <= point.y) {
-                if (end.y > point.y) {
-                    if (isLeft(start, end, point) > 0) {
-                        windingNumber++;
-                    }
-                }
-            } else {
-                if (end.y <= point.y) {
-                    if (isLeft(start, end, point) < 0) {
-                        windingNumber--;
-                    }
+            if ((start.y > y) != (end.y > y)) {
+                double crossX = start.x + (y - start.y) * (end.x - start.x) / (end.y - start.y);
+                if (x < crossX) {
+                    inside = !inside;
                 }
             }
         }
         
-        return windingNumber != 0;
-    }
-    
-    private double isLeft(Vector2D p0, Vector2D p1, Vector2D p2) {
-        return ((p1.x - p0.x) * (p2.y - p0.y) - (p2.x - p0.x) * (p1.y - p0.y));
+        return inside;
     }
     
     public double getWallHeight() {
@@ -79,6 +80,12 @@ public class Sector {
     public int getCeilingTextureId() { return ceilingTextureId; }
     public void setCeilingTextureId(int ceilingTextureId) { this.ceilingTextureId = ceilingTextureId; }
     
+    public Sector[] getNeighbours() { return neighbours; }
+    void setNeighbours(Sector[] neighbours) { this.neighbours = neighbours; }
+    
+    public int getIndex() { return index; }
+    void setIndex(int index) { this.index = index; }
+    
     public int getLightLevel() { return lightLevel; }
     public void setLightLevel(int lightLevel) { 
         this.lightLevel = Math.max(0, Math.min(255, lightLevel)); 
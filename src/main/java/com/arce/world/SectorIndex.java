@@ -0,0 +1,167 @@
+package com.arce.world;
+
+import com.arce.logger.EngineLogger;
+import com.arce.math.Vector2D;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Равномерная сетка для поиска сектора по точке.
+ * Для каждого сектора хранится ограничивающий прямоугольник, каждая ячейка сетки -
+ * список секторов, чьи прямоугольники ее задевают. Запрос проверяет только кандидатов
+ * своей ячейки и в том же порядке, что и полный перебор, поэтому результат совпадает с ним.
+ */
+public final class SectorIndex {
+    private static final EngineLogger logger = new EngineLogger(SectorIndex.class);
+    
+    // Примерно столько ячеек на сектор; сторона сетки ограничена сверху
+    private static final int CELLS_PER_SECTOR = 4;
+    private static final int MAX_GRID_SIZE = 256;
+    
+    private final Sector[] sectors;
+    private final double[] bounds;      // minX, minY, maxX, maxY на сектор
+    
+    private final double originX;
+    private final double originY;
+    private final double maxX;
+    private final double maxY;
+    private final double invCellWidth;
+    private final double invCellHeight;
+    private final int columns;
+    private final int rows;
+    
+    // Списки ячеек подряд в одном массиве: кандидаты ячейки c - cellSectors[cellStart[c]..cellStart[c+1])
+    private final int[] cellStart;
+    private final int[] cellSectors;
+    
+    private SectorIndex(Sector[] sectors, double[] bounds, double originX, double originY, double maxX, double maxY,
+                        int columns, int rows) {
+        this.sectors = sectors;
+        this.bounds = bounds;
+        this.originX = originX;
+        this.originY = originY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.columns = columns;
+        this.rows = rows;
+        this.invCellWidth = maxX > originX ? columns / (maxX - originX) : 0.0;
+        this.invCellHeight = maxY > originY ? rows / (maxY - originY) : 0.0;
+        
+        // Два прохода: подсчет кандидатов по ячейкам, затем заполнение по возрастанию индекса сектора
+        int cellCount = columns * rows;
+        cellStart = new int[cellCount + 1];
+        forEachCell(cell -> cellStart[cell + 1]++, -1);
+        for (int c = 0; c < cellCount; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        
+        cellSectors = new int[cellStart[cellCount]];
+        int[] fill = new int[cellCount];
+        for (int i = 0; i < sectors.length; i++) {
+            int sector = i;
+            forEachCell(cell -> cellSectors[cellStart[cell] + fill[cell]++] = sector, i);
+        }
+    }
+    
+    // Обход ячеек, задетых прямоугольником сектора (или всех секторов при sector = -1)
+    private void forEachCell(IntConsumer action, int sector) {
+        int from = sector < 0 ? 0 : sector;
+        int to = sector < 0 ? sectors.length : sector + 1;
+        for (int i = from; i < to; i++) {
+            int b = i * 4;
+            if (bounds[b] > bounds[b + 2]) {
+                continue;
+            }
+            for (int row = rowOf(bounds[b + 1]); row <= rowOf(bounds[b + 3]); row++) {
+                for (int col = columnOf(bounds[b]); col <= columnOf(bounds[b + 2]); col++) {
+                    action.accept(row * columns + col);
+                }
+            }
+        }
+    }
+    
+    public static SectorIndex build(List<Sector> sectorList) {
+        int count = sectorList.size();
+        Sector[] sectors = sectorList.toArray(new Sector[0]);
+        double[] bounds = new double[count * 4];
+        
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        
+        for (int i = 0; i < count; i++) {
+            double sMinX = Double.POSITIVE_INFINITY;
+            double sMinY = Double.POSITIVE_INFINITY;
+            double sMaxX = Double.NEGATIVE_INFINITY;
+            double sMaxY = Double.NEGATIVE_INFINITY;
+            
+            for (Wall wall : sectors[i].getWalls()) {
+                Vector2D start = wall.getLine().start;
+                Vector2D end = wall.getLine().end;
+                sMinX = Math.min(sMinX, Math.min(start.x, end.x));
+                sMinY = Math.min(sMinY, Math.min(start.y, end.y));
+                sMaxX = Math.max(sMaxX, Math.max(start.x, end.x));
+                sMaxY = Math.max(sMaxY, Math.max(start.y, end.y));
+            }
+            
+            bounds[i * 4] = sMinX;
+            bounds[i * 4 + 1] = sMinY;
+            bounds[i * 4 + 2] = sMaxX;
+            bounds[i * 4 + 3] = sMaxY;
+            
+            if (sMinX <= sMaxX) {
+                minX = Math.min(minX, sMinX);
+                minY = Math.min(minY, sMinY);
+                maxX = Math.max(maxX, sMaxX);
+                maxY = Math.max(maxY, sMaxY);
+            }
+        }
+        
+        int columns = 1;
+        int rows = 1;
+        if (minX <= maxX) {
+            double width = Math.max(maxX - minX, 1e-9);
+            double height = Math.max(maxY - minY, 1e-9);
+            double cellSize = Math.sqrt(width * height / Math.max(1, count * CELLS_PER_SECTOR));
+            columns = Math.max(1, Math.min(MAX_GRID_SIZE, (int) Math.ceil(width / cellSize)));
+            rows = Math.max(1, Math.min(MAX_GRID_SIZE, (int) Math.ceil(height / cellSize)));
+        }
+        
+        SectorIndex index = new SectorIndex(sectors, bounds, minX, minY, maxX, maxY, columns, rows);
+        logger.logInfo("Sector index built: " + columns + "x" + rows + " cells, "
+                       + index.cellSectors.length + " entries for " + count + " sectors");
+        return index;
+    }
+    
+    public Sector find(double x, double y) {
+        if (x < originX || x > maxX || y < originY || y > maxY) {
+            return null;
+        }
+        
+        int cell = rowOf(y) * columns + columnOf(x);
+        for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+            int s = cellSectors[i];
+            int b = s * 4;
+            if (x >= bounds[b] && x <= bounds[b + 2] && y >= bounds[b + 1] && y <= bounds[b + 3]
+                    && sectors[s].containsPoint(x, y)) {
+                return sectors[s];
+            }
+        }
+        return null;
+    }
+    
+    private int columnOf(double x) {
+        int col = (int) ((x - originX) * invCellWidth);
+        return Math.max(0, Math.min(columns - 1, col));
+    }
+    
+    private int rowOf(double y) {
+        int row = (int) ((y - originY) * invCellHeight);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+    
+    public int getColumns() { return columns; }
+    public int getRows() { return rows; }
+}
\ No newline at end of file
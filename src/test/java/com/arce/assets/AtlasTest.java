@@ -0,0 +1,150 @@
+package com.arce.assets;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AtlasTest {
+    private static final int BLOCK = Texture.texelBlockSize(16, 16);
+    
+    @Test
+    void releasedBlockIsReusedBySameSizeTexture() {
+        TextureAtlas atlas = new TextureAtlas();
+        Texture first = add(atlas, Color.RED, 16);
+        Texture middle = add(atlas, Color.GREEN, 16);
+        Texture last = add(atlas, Color.BLUE, 16);
+        assertEquals(3L * BLOCK, atlas.getUsedTexels());
+        
+        int middleBase = middle.getRowBase();
+        atlas.release(middle);
+        assertNull(middle.getAtlasPage());
+        assertEquals(2L * BLOCK, atlas.getUsedTexels());
+        
+        Texture reused = add(atlas, Color.YELLOW, 16);
+        assertEquals(middleBase, reused.getRowBase());
+        assertEquals(3L * BLOCK, atlas.getUsedTexels());
+        assertEquals(3L * BLOCK, first.getAtlasPage().getUsed());
+        
+        // Соседи не задеты ни освобождением, ни новой текстурой
+        assertTexture(first, Color.RED);
+        assertTexture(reused, Color.YELLOW);
+        assertTexture(last, Color.BLUE);
+    }
+    
+    @Test
+    void adjacentFreeBlocksMerge() {
+        TextureAtlas atlas = new TextureAtlas();
+        Texture first = add(atlas, Color.RED, 16);
+        Texture second = add(atlas, Color.GREEN, 16);
+        Texture third = add(atlas, Color.BLUE, 16);
+        Texture fourth = add(atlas, Color.WHITE, 16);
+        Texture last = add(atlas, Color.GRAY, 16);
+        
+        // Освобождение в обратном порядке: блок сливается и с предыдущим, и со следующим
+        atlas.release(second);
+        atlas.release(fourth);
+        atlas.release(third);
+        assertEquals(2L * BLOCK, atlas.getUsedTexels());
+        
+        // 16x48 занимает ровно три соседних блока
+        Texture wide = add(atlas, Color.ORANGE, 16, 48);
+        assertEquals(first.getRowBase() + BLOCK, wide.getRowBase());
+        assertEquals(5L * BLOCK, last.getAtlasPage().getUsed());
+        assertEquals(5L * BLOCK, atlas.getUsedTexels());
+        
+        assertTexture(first, Color.RED);
+        assertTexture(wide, Color.ORANGE);
+        assertTexture(last, Color.GRAY);
+    }
+    
+    @Test
+    void freeTailReturnsToPage() {
+        TextureAtlas atlas = new TextureAtlas();
+        Texture first = add(atlas, Color.RED, 16);
+        Texture second = add(atlas, Color.GREEN, 16);
+        Texture third = add(atlas, Color.BLUE, 16);
+        TextureAtlas.Page page = first.getAtlasPage();
+        
+        atlas.release(second);
+        atlas.release(third);
+        assertEquals(BLOCK, page.getUsed());
+        assertEquals(BLOCK, atlas.getUsedTexels());
+        
+        // Хвост снова выдается по порядку, больший размер растет с того же места
+        Texture wide = add(atlas, Color.YELLOW, 32);
+        assertEquals(BLOCK, wide.getRowBase());
+        assertSame(page, wide.getAtlasPage());
+        assertEquals(5L * BLOCK, atlas.getUsedTexels());
+        assertTexture(first, Color.RED);
+        assertTexture(wide, Color.YELLOW);
+    }
+    
+    @Test
+    void doubleReleaseFreesBlockOnce() {
+        TextureAtlas atlas = new TextureAtlas();
+        Texture first = add(atlas, Color.RED, 16);
+        Texture released = add(atlas, Color.GREEN, 16);
+        add(atlas, Color.BLUE, 16);
+        
+        atlas.release(released);
+        atlas.release(released);
+        assertEquals(2L * BLOCK, atlas.getUsedTexels());
+        
+        // Если бы блок попал в список дважды, обе текстуры получили бы одни и те же тексели
+        Texture a = add(atlas, Color.YELLOW, 16);
+        Texture b = add(atlas, Color.WHITE, 16);
+        assertNotEquals(a.getRowBase(), b.getRowBase());
+        assertEquals(4L * BLOCK, atlas.getUsedTexels());
+        assertTexture(first, Color.RED);
+        assertTexture(a, Color.YELLOW);
+        assertTexture(b, Color.WHITE);
+    }
+    
+    @Test
+    void texturesCannotBeAddedTwiceOrAfterRelease() {
+        TextureAtlas atlas = new TextureAtlas();
+        Texture texture = add(atlas, Color.RED, 16);
+        assertThrows(IllegalStateException.class, () -> atlas.add(texture));
+        
+        atlas.release(texture);
+        assertThrows(IllegalStateException.class, () -> atlas.add(texture));
+        assertEquals(0L, atlas.getUsedTexels());
+    }
+    
+    private static Texture add(TextureAtlas atlas, Color color, int size) {
+        return add(atlas, color, size, size);
+    }
+    
+    private static Texture add(TextureAtlas atlas, Color color, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        
+        Texture texture = new Texture(color.toString(), image);
+        atlas.add(texture);
+        return texture;
+    }
+    
+    // Оба блока текстуры - построчный и по столбцам - целиком ее цвета
+    private static void assertTexture(Texture texture, Color color) {
+        int[] texels = texture.getTexels();
+        int expected = color.getRGB();
+        for (int x = 0; x < texture.getWidth(); x++) {
+            int column = texture.getColumnOffset(x);
+            for (int y = 0; y < texture.getHeight(); y++) {
+                assertEquals(expected, texture.sample(x, y), texture + " row texel " + x + "," + y);
+                assertEquals(expected, texels[column + y], texture + " column texel " + x + "," + y);
+            }
+        }
+    }
+}
\ No newline at end of file
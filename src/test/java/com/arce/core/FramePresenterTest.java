@@ -0,0 +1,197 @@
+package com.arce.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics;
+import java.awt.BufferCapabilities;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.ImageCapabilities;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Цикл повторов FramePresenter на поддельных BufferStrategy и VolatileImage - без дисплея.
+ */
+class FramePresenterTest {
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 3;
+    
+    private final List<FakeVolatileImage> created = new ArrayList<>();
+    private final FakeStrategy strategy = new FakeStrategy();
+    private Image lastDrawn;
+    private final FramePresenter presenter = new FramePresenter(strategy, (configuration, width, height) -> {
+        FakeVolatileImage image = new FakeVolatileImage(width, height);
+        created.add(image);
+        return image;
+    });
+    
+    @Test
+    void presentsFrameOnceWhenNothingIsLost() {
+        BufferedImage frame = frame(0x112233);
+        presenter.present(frame, null, this::copy);
+        
+        assertEquals(1, created.size());
+        assertEquals(1, created.get(0).uploads);
+        assertEquals(1, strategy.draws);
+        assertEquals(1, strategy.shows);
+        assertScreenShows(0x112233);
+    }
+    
+    // Восстановленный задний буфер перерисовывается до show, потерянный - после него
+    @Test
+    void redrawsWhenStrategyContentsAreRestoredOrLost() {
+        strategy.restoredAfterDraws = 2;
+        strategy.lostAfterShows = 1;
+        
+        presenter.present(frame(0x445566), null, this::copy);
+        
+        assertEquals(1, created.get(0).uploads);
+        assertEquals(4, strategy.draws);
+        assertEquals(2, strategy.shows);
+        assertScreenShows(0x445566);
+    }
+    
+    // Потерянный VolatileImage загружается заново, и кадр выводится еще раз
+    @Test
+    void reuploadsWhenUploadImageIsLost() {
+        presenter.present(frame(0x010203), null, this::copy);
+        FakeVolatileImage upload = created.get(0);
+        upload.lostChecks = 1;
+        
+        presenter.present(frame(0x0a0b0c), null, this::copy);
+        
+        assertEquals(1, created.size());
+        assertEquals(3, upload.uploads);
+        assertEquals(3, strategy.shows);
+        assertScreenShows(0x0a0b0c);
+    }
+    
+    // Несовместимый с конфигурацией или другого размера VolatileImage создается заново
+    @Test
+    void recreatesIncompatibleOrResizedUploadImage() {
+        presenter.present(frame(0x111111), null, this::copy);
+        created.get(0).validateResult = VolatileImage.IMAGE_INCOMPATIBLE;
+        
+        presenter.present(frame(0x222222), null, this::copy);
+        assertEquals(2, created.size());
+        assertEquals(1, created.get(0).flushes);
+        
+        BufferedImage smaller = new BufferedImage(WIDTH - 1, HEIGHT - 1, BufferedImage.TYPE_INT_RGB);
+        presenter.present(smaller, null, this::copy);
+        assertEquals(3, created.size());
+        assertEquals(WIDTH - 1, created.get(2).getWidth());
+        assertSame(created.get(2), lastDrawn);
+    }
+    
+    private void assertScreenShows(int rgb) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(rgb, strategy.screen.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+    
+    private static BufferedImage frame(int rgb) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+    
+    // Рисует загруженный кадр как есть и запоминает, какой VolatileImage был источником
+    private void copy(Graphics2D g, Image image, int width, int height) {
+        lastDrawn = image;
+        g.drawImage(((FakeVolatileImage) image).contents, 0, 0, null);
+    }
+    
+    private static final class FakeStrategy extends BufferStrategy {
+        final BufferedImage back = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        int restoredAfterDraws;
+        int lostAfterShows;
+        int draws;
+        int shows;
+        
+        @Override
+        public Graphics getDrawGraphics() {
+            draws++;
+            return back.createGraphics();
+        }
+        
+        @Override
+        public boolean contentsRestored() {
+            return restoredAfterDraws-- > 0;
+        }
+        
+        @Override
+        public void show() {
+            shows++;
+            Graphics2D g = screen.createGraphics();
+            g.drawImage(back, 0, 0, null);
+            g.dispose();
+        }
+        
+        @Override
+        public boolean contentsLost() {
+            return lostAfterShows-- > 0;
+        }
+        
+        @Override
+        public BufferCapabilities getCapabilities() {
+            return null;
+        }
+    }
+    
+    private static final class FakeVolatileImage extends VolatileImage {
+        final BufferedImage contents;
+        int validateResult = IMAGE_OK;
+        int lostChecks;
+        int uploads;
+        int flushes;
+        
+        FakeVolatileImage(int width, int height) {
+            this.contents = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        
+        @Override
+        public Graphics2D createGraphics() {
+            uploads++;
+            return contents.createGraphics();
+        }
+        
+        @Override
+        public int validate(GraphicsConfiguration configuration) {
+            return validateResult;
+        }
+        
+        @Override
+        public boolean contentsLost() {
+            return lostChecks-- > 0;
+        }
+        
+        @Override
+        public void flush() {
+            flushes++;
+        }
+        
+        @Override public BufferedImage getSnapshot() { return contents; }
+        @Override public int getWidth() { return contents.getWidth(); }
+        @Override public int getHeight() { return contents.getHeight(); }
+        @Override public int getWidth(ImageObserver observer) { return getWidth(); }
+        @Override public int getHeight(ImageObserver observer) { return getHeight(); }
+        @Override public Object getProperty(String name, ImageObserver observer) { return UndefinedProperty; }
+        @Override public ImageCapabilities getCapabilities() { return new ImageCapabilities(true); }
+    }
+}
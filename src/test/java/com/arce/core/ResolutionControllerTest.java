@@ -0,0 +1,60 @@
+package com.arce.core;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResolutionControllerTest {
+    private static final long SLOW_FRAME = 100_000_000L;
+    private static final long FAST_FRAME = 1_000_000L;
+    
+    // Каждая ступень помещается в окно целое число раз, и рамка меньше одного кратного пикселя
+    @ParameterizedTest(name = "{0}x{1} / {2}")
+    @CsvSource({ "800, 600, 1", "800, 600, 2", "1366, 768, 1", "1366, 768, 3" })
+    void everyLevelScalesToTheWindowByAnInteger(int windowWidth, int windowHeight, int renderScale) {
+        ResolutionController controller = new ResolutionController(windowWidth, windowHeight, renderScale, 16, 0.2);
+        assertEquals(windowWidth / renderScale, controller.getWidth());
+        assertEquals(windowHeight / renderScale, controller.getHeight());
+        
+        int divisor = renderScale;
+        while (stepDown(controller)) {
+            divisor++;
+            int scale = Math.min(windowWidth / controller.getWidth(), windowHeight / controller.getHeight());
+            assertEquals(divisor, scale);
+            assertTrue(windowWidth - controller.getWidth() * scale < divisor);
+            assertTrue(windowHeight - controller.getHeight() * scale < divisor);
+            assertTrue(controller.getScale() >= 0.2 - 1e-9);
+        }
+        assertTrue(divisor > renderScale);
+    }
+    
+    // Медленные кадры опускают разрешение до минимума, быстрые возвращают номинальное
+    @ParameterizedTest(name = "render_scale {0}")
+    @CsvSource({ "1, 0.5, 1", "2, 0.5, 2", "2, 0.3, 4" })
+    void settlesBetweenNominalAndMinimumScale(int renderScale, double minScale, int levels) {
+        ResolutionController controller = new ResolutionController(800, 600, renderScale, 16, minScale);
+        
+        for (int i = 0; i < 1000; i++) {
+            controller.record(SLOW_FRAME);
+        }
+        assertEquals(800 / (renderScale + levels), controller.getWidth());
+        
+        for (int i = 0; i < 1000; i++) {
+            controller.record(FAST_FRAME);
+        }
+        assertEquals(800 / renderScale, controller.getWidth());
+        assertEquals(1.0, controller.getScale());
+    }
+    
+    private static boolean stepDown(ResolutionController controller) {
+        int width = controller.getWidth();
+        for (int i = 0; i < 100; i++) {
+            if (controller.record(SLOW_FRAME)) {
+                return controller.getWidth() != width;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,42 @@
+package com.arce.core.managers;
+
+import com.arce.assets.Texture;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class AssetManagerTest {
+    private static final int SIZE = 32;
+    private static final long BLOCK = SIZE * SIZE * 2L;    // построчный блок и блок по столбцам
+    
+    // Кадр, начатый до замены, дочитывает прежнюю текстуру: ее блок не отдается новой
+    // до границы кадра, а после нее используется снова
+    @Test
+    void replacedTextureKeepsItsBlockUntilEndFrame() {
+        AssetManager assets = new AssetManager();
+        Texture old = assets.createProceduralTexture("probe", (name, size) -> Texture.createSolid(name, Color.RED, size), SIZE);
+        int handle = assets.getTextureHandle("probe");
+        long used = assets.getAtlas().getUsedTexels();
+        
+        Texture replacement = assets.createProceduralTexture("probe", (name, size) -> Texture.createSolid(name, Color.BLUE, size), SIZE);
+        assertSame(replacement, assets.getTextureByHandle(handle));
+        assertEquals(used + BLOCK, assets.getAtlas().getUsedTexels());
+        
+        Texture other = assets.createProceduralTexture("other", (name, size) -> Texture.createSolid(name, Color.GREEN, size), SIZE);
+        assertEquals(Color.RED.getRGB(), old.sample(5, 7));
+        assertEquals(Color.GREEN.getRGB(), other.sample(5, 7));
+        
+        int oldBase = old.getRowBase();
+        assets.endFrame();
+        assertEquals(used + BLOCK, assets.getAtlas().getUsedTexels());
+        
+        Texture reused = assets.createProceduralTexture("third", (name, size) -> Texture.createSolid(name, Color.YELLOW, size), SIZE);
+        assertEquals(oldBase, reused.getRowBase());
+        assertEquals(Color.BLUE.getRGB(), replacement.sample(5, 7));
+        assertEquals(Color.GREEN.getRGB(), other.sample(5, 7));
+        assertEquals(Color.YELLOW.getRGB(), reused.sample(5, 7));
+    }
+}
\ No newline at end of file
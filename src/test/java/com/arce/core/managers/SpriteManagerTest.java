@@ -0,0 +1,105 @@
+package com.arce.core.managers;
+
+import com.arce.entities.Sprite;
+import com.arce.entities.SpritePool;
+import com.arce.math.Vector2D;
+import com.arce.world.GameMap;
+import com.arce.world.Sector;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SpriteManagerTest {
+    // Больше 2 * MIN_CHUNK_SIZE, иначе обновление остается последовательным
+    private static final int SPRITES = 3000;
+    private static final int TICKS = 20;
+    private static final String[] FRAMES = { "f0", "f1", "f2" };
+    
+    // Одинаковые шаги в 1 и в N потоках: те же позиции, кадры анимации и порядок спрайтов в списках секторов
+    @ParameterizedTest(name = "{0} threads")
+    @ValueSource(ints = { 2, 4, 7 })
+    void parallelUpdateMatchesSerial(int threads) {
+        GameMap map = GameMap.createComplexTestMap();
+        SpriteManager serial = new SpriteManager(map);
+        SpriteManager parallel = new SpriteManager(map);
+        parallel.setThreadCount(threads);
+        
+        try {
+            List<Sprite> serialSprites = populate(serial);
+            List<Sprite> parallelSprites = populate(parallel);
+            Random serialMoves = new Random(24);
+            Random parallelMoves = new Random(24);
+            
+            for (int tick = 0; tick < TICKS; tick++) {
+                step(serial, serialSprites, serialMoves);
+                step(parallel, parallelSprites, parallelMoves);
+                assertSameState(map, serial, parallel, "tick " + tick);
+            }
+        } finally {
+            parallel.shutdown();
+        }
+    }
+    
+    private static List<Sprite> populate(SpriteManager manager) {
+        Random random = new Random(7);
+        List<Sprite> sprites = new ArrayList<>();
+        for (int i = 0; i < SPRITES; i++) {
+            Vector2D position = new Vector2D(random.nextDouble() * 320 - 10, random.nextDouble() * 120 - 10);
+            Sprite sprite = i % 3 == 0
+                ? manager.createAnimatedSprite("s" + i, position, FRAMES, 2 + random.nextInt(8))
+                : manager.createSprite("s" + i, position, "t");
+            sprites.add(sprite);
+        }
+        return sprites;
+    }
+    
+    // Часть спрайтов сдвигается (в том числе через портал и за пределы карты), изредка один удаляется
+    private static void step(SpriteManager manager, List<Sprite> sprites, Random random) {
+        for (Sprite sprite : sprites) {
+            if (random.nextInt(4) == 0) {
+                sprite.setPosition(sprite.getX() + random.nextDouble() * 60 - 30,
+                                   sprite.getY() + random.nextDouble() * 20 - 10);
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            Sprite sprite = sprites.remove(random.nextInt(sprites.size()));
+            manager.destroySprite(sprite.getId());
+        }
+        manager.update(0.05);
+    }
+    
+    private static void assertSameState(GameMap map, SpriteManager expected, SpriteManager actual, String when) {
+        SpritePool expectedPool = expected.getPool();
+        SpritePool actualPool = actual.getPool();
+        assertEquals(expectedPool.size(), actualPool.size(), when);
+        
+        for (int slot = 0; slot < expectedPool.size(); slot++) {
+            String where = when + ", slot " + slot;
+            assertEquals(expectedPool.getName(slot), actualPool.getName(slot), where);
+            assertEquals(expectedPool.getX(slot), actualPool.getX(slot), where);
+            assertEquals(expectedPool.getY(slot), actualPool.getY(slot), where);
+            assertEquals(expectedPool.getCurrentTexture(slot), actualPool.getCurrentTexture(slot), where);
+            assertEquals(expectedPool.getSector(slot), actualPool.getSector(slot), where);
+        }
+        
+        List<Sector> sectors = new ArrayList<>(map.getSectors());
+        sectors.add(null);
+        for (Sector sector : sectors) {
+            assertEquals(namesInSector(expectedPool, sector), namesInSector(actualPool, sector),
+                         when + ", sector " + (sector != null ? sector.getId() : "none"));
+        }
+    }
+    
+    private static List<String> namesInSector(SpritePool pool, Sector sector) {
+        List<String> names = new ArrayList<>();
+        for (int slot = pool.firstInSector(sector); slot >= 0; slot = pool.nextInSector(slot)) {
+            names.add(pool.getName(slot));
+        }
+        return names;
+    }
+}
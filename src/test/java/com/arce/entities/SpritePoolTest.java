@@ -0,0 +1,104 @@
+package com.arce.entities;
+
+import com.arce.world.GameMap;
+import com.arce.world.Sector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpritePoolTest {
+    
+    @Test
+    void freeMovesLastSpriteIntoTheHole() {
+        SpritePool pool = new SpritePool(4);
+        Sprite first = pool.getHandle(pool.allocate("a", 1, 1, "t", Sprite.SpriteType.BILLBOARD));
+        Sprite middle = pool.getHandle(pool.allocate("b", 2, 2, "t", Sprite.SpriteType.BILLBOARD));
+        Sprite last = pool.getHandle(pool.allocate("c", 3, 3, "t", Sprite.SpriteType.BILLBOARD));
+        
+        pool.free(middle.getSlot());
+        
+        assertEquals(2, pool.size());
+        assertFalse(middle.isValid());
+        assertThrows(IllegalStateException.class, middle::getX);
+        assertEquals(0, first.getSlot());
+        assertEquals(1, last.getSlot());
+        assertEquals("c", last.getName());
+        assertEquals(3.0, last.getX());
+    }
+    
+    // Случайные создания, удаления и смены секторов: после каждого шага слоты плотные,
+    // ручки указывают на свои слоты, списки секторов совпадают с полем sector
+    @Test
+    void randomOperationsKeepSlotsPackedAndSectorListsConsistent() {
+        List<Sector> sectors = new ArrayList<>(GameMap.createComplexTestMap().getSectors());
+        sectors.add(null);
+        
+        SpritePool pool = new SpritePool(4);
+        List<Sprite> live = new ArrayList<>();
+        List<Sprite> freed = new ArrayList<>();
+        Random random = new Random(23);
+        
+        for (int step = 0; step < 20000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5 || live.isEmpty()) {
+                int slot = pool.allocate("s" + step, step, step, "t", Sprite.SpriteType.BILLBOARD);
+                pool.setSector(slot, sectors.get(random.nextInt(sectors.size())));
+                live.add(pool.getHandle(slot));
+            } else if (action < 8) {
+                Sprite sprite = live.remove(random.nextInt(live.size()));
+                pool.free(sprite.getSlot());
+                freed.add(sprite);
+            } else {
+                Sprite sprite = live.get(random.nextInt(live.size()));
+                pool.setSector(sprite.getSlot(), sectors.get(random.nextInt(sectors.size())));
+            }
+            
+            assertPoolConsistent(pool, live, sectors);
+        }
+        
+        for (Sprite sprite : freed) {
+            assertFalse(sprite.isValid());
+        }
+    }
+    
+    private static void assertPoolConsistent(SpritePool pool, List<Sprite> live, List<Sector> sectors) {
+        assertEquals(live.size(), pool.size());
+        for (Sprite sprite : live) {
+            assertTrue(sprite.isValid());
+            assertTrue(sprite.getSlot() < pool.size());
+            assertSame(sprite, pool.getHandle(sprite.getSlot()));
+            assertEquals(sprite.getId(), pool.getId(sprite.getSlot()));
+        }
+        
+        int linked = 0;
+        for (Sector sector : sectors) {
+            if (sector == null) {
+                continue;
+            }
+            Set<Integer> seen = new HashSet<>();
+            for (int slot = pool.firstInSector(sector); slot >= 0; slot = pool.nextInSector(slot)) {
+                assertTrue(seen.add(slot), "slot " + slot + " linked twice");
+                assertSame(sector, pool.getSector(slot));
+                linked++;
+            }
+        }
+        
+        int withSector = 0;
+        for (int slot = 0; slot < pool.size(); slot++) {
+            if (pool.getSector(slot) != null) {
+                withSector++;
+            }
+        }
+        assertEquals(withSector, linked);
+    }
+}
\ No newline at end of file
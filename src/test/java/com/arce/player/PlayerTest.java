@@ -0,0 +1,72 @@
+package com.arce.player;
+
+import com.arce.math.Vector2D;
+import com.arce.world.GameMap;
+import com.arce.world.Sector;
+import com.arce.world.Wall;
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.KeyEvent;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerTest {
+    
+    // Карта без buildBSP (нет блочной карты): сплошная стена между комнатами все равно не пропускает игрока
+    @Test
+    void solidWallStopsPlayerOnUnbuiltMap() {
+        GameMap map = twoRoomsWithSolidWall();
+        assertNull(map.getBlockMap());
+        
+        Player player = new Player(new Vector2D(50, 50), 0, map, 64, 48);
+        Sector start = player.getCurrentSector();
+        boolean[] keys = new boolean[256];
+        keys[KeyEvent.VK_W] = true;
+        
+        // Шаг в 75 единиц без проверки столкновений перенес бы игрока во вторую комнату
+        for (int i = 0; i < 5; i++) {
+            player.update(keys, 0.5);
+        }
+        
+        assertSame(start, player.getCurrentSector());
+        assertSame(start, map.findSector(player.getPosition()));
+        assertTrue(player.getPosition().x <= 100 - player.getRadius() + 1e-6,
+                   "player at " + player.getPosition() + " went into the wall");
+    }
+    
+    private static GameMap twoRoomsWithSolidWall() {
+        GameMap map = new GameMap();
+        Sector left = new Sector(1);
+        Sector right = new Sector(2);
+        
+        Wall shared = new Wall(new Vector2D(100, 0), new Vector2D(100, 100));
+        Wall[] leftWalls = {
+            new Wall(new Vector2D(0, 0), new Vector2D(100, 0)),
+            new Wall(new Vector2D(100, 100), new Vector2D(0, 100)),
+            new Wall(new Vector2D(0, 100), new Vector2D(0, 0))
+        };
+        Wall[] rightWalls = {
+            new Wall(new Vector2D(100, 0), new Vector2D(200, 0)),
+            new Wall(new Vector2D(200, 0), new Vector2D(200, 100)),
+            new Wall(new Vector2D(200, 100), new Vector2D(100, 100))
+        };
+        
+        for (Wall wall : leftWalls) {
+            left.addWall(wall);
+            map.addWall(wall);
+        }
+        for (Wall wall : rightWalls) {
+            right.addWall(wall);
+            map.addWall(wall);
+        }
+        left.addWall(shared);
+        right.addWall(shared);
+        map.addWall(shared);
+        
+        map.addSector(left);
+        map.addSector(right);
+        return map;
+    }
+}
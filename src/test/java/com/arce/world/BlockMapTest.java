@@ -0,0 +1,94 @@
+package com.arce.world;
+
+import com.arce.math.Line2D;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class BlockMapTest {
+    private static final int QUERIES = 2000;
+    
+    static Stream<Arguments> maps() {
+        return TestMaps.all();
+    }
+    
+    // Случайные круги вокруг карты: каждая стена в радиусе найдена ровно один раз, лишних нет
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void radiusQueryMatchesBruteForce(String name, GameMap map) {
+        BlockMap blockMap = map.getBlockMap();
+        assertNotNull(blockMap);
+        
+        double[] bounds = map.getWallBounds();
+        Random random = new Random(13);
+        int[] found = new int[blockMap.getWallCount()];
+        
+        for (int q = 0; q < QUERIES; q++) {
+            double x = randomCoordinate(random, bounds[0], bounds[2]);
+            double y = randomCoordinate(random, bounds[1], bounds[3]);
+            double radius = 1 + random.nextDouble() * 60;
+            
+            int count = blockMap.queryWallsInRadius(x, y, radius, found);
+            boolean[] seen = new boolean[found.length];
+            for (int i = 0; i < count; i++) {
+                assertFalse(seen[found[i]], "wall " + found[i] + " reported twice");
+                seen[found[i]] = true;
+            }
+            for (int w = 0; w < found.length; w++) {
+                Line2D line = blockMap.getWall(w).getLine();
+                boolean near = Line2D.distanceSquaredToSegment(x, y, line.start.x, line.start.y,
+                                                               line.end.x, line.end.y) <= radius * radius;
+                assertEquals(near, seen[w], "wall " + w + " for circle (" + x + ", " + y + ", " + radius + ")");
+            }
+        }
+    }
+    
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void lineOfSightMatchesBruteForce(String name, GameMap map) {
+        BlockMap blockMap = map.getBlockMap();
+        assertNotNull(blockMap);
+        
+        double[] bounds = map.getWallBounds();
+        Random random = new Random(13);
+        
+        for (int q = 0; q < QUERIES; q++) {
+            double ax = randomCoordinate(random, bounds[0], bounds[2]);
+            double ay = randomCoordinate(random, bounds[1], bounds[3]);
+            double bx = randomCoordinate(random, bounds[0], bounds[2]);
+            double by = randomCoordinate(random, bounds[1], bounds[3]);
+            assertEquals(lineOfSightBruteForce(blockMap, ax, ay, bx, by), blockMap.lineOfSight(ax, ay, bx, by),
+                         "(" + ax + ", " + ay + ") -> (" + bx + ", " + by + ")");
+        }
+    }
+    
+    // Точка в рамке карты с запасом 50 с каждой стороны
+    private static double randomCoordinate(Random random, double min, double max) {
+        return min - 50 + random.nextDouble() * (max - min + 100);
+    }
+    
+    private static boolean lineOfSightBruteForce(BlockMap blockMap, double ax, double ay, double bx, double by) {
+        double length = Math.sqrt((bx - ax) * (bx - ax) + (by - ay) * (by - ay));
+        if (length == 0) {
+            return true;
+        }
+        
+        for (int w = 0; w < blockMap.getWallCount(); w++) {
+            Wall wall = blockMap.getWall(w);
+            Line2D line = wall.getLine();
+            double t = Line2D.intersectRayDistance(ax, ay, (bx - ax) / length, (by - ay) / length,
+                                                   line.start.x, line.start.y, line.end.x, line.end.y);
+            if (wall.isSolid() && t != Line2D.NO_INTERSECTION && t <= length) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.arce.world;
+
+import com.arce.math.Line2D;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircleMoverTest {
+    private static final int STEPS = 5000;
+    private static final double RADIUS = 8.0;
+    
+    static Stream<Arguments> maps() {
+        return TestMaps.builtIn();
+    }
+    
+    // Случайное блуждание с большими шагами: круг не должен заходить в стены и покидать сектора
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void randomWalkNeverPenetratesWalls(String name, GameMap map) {
+        BlockMap blockMap = map.getBlockMap();
+        assertNotNull(blockMap);
+        
+        CircleMover mover = new CircleMover();
+        Random random = new Random(14);
+        double x = map.getPlayerStartPosition().x;
+        double y = map.getPlayerStartPosition().y;
+        double minDistanceSquared = (RADIUS - 1e-6) * (RADIUS - 1e-6);
+        
+        for (int step = 0; step < STEPS; step++) {
+            double angle = random.nextDouble() * Math.PI * 2;
+            double speed = random.nextInt(10) == 0 ? 5000 : random.nextDouble() * 40;
+            mover.move(blockMap, x, y, RADIUS, Math.cos(angle) * speed, Math.sin(angle) * speed);
+            
+            String position = "step " + step + " at (" + mover.x + ", " + mover.y + ")";
+            assertNotNull(map.findSector(mover.x, mover.y), position + " left the sectors");
+            for (int w = 0; w < blockMap.getWallCount(); w++) {
+                Line2D line = blockMap.getWall(w).getLine();
+                assertTrue(!blockMap.getWall(w).isSolid()
+                           || Line2D.distanceSquaredToSegment(mover.x, mover.y, line.start.x, line.start.y,
+                                                              line.end.x, line.end.y) >= minDistanceSquared,
+                           position + " penetrates wall " + w);
+            }
+            x = mover.x;
+            y = mover.y;
+        }
+    }
+}
\ No newline at end of file
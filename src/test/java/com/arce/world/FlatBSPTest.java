@@ -0,0 +1,79 @@
+package com.arce.world;
+
+import com.arce.math.Line2D;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FlatBSPTest {
+    private static final int VIEW_STEPS = 8;
+    
+    static Stream<Arguments> maps() {
+        return TestMaps.all();
+    }
+    
+    // С ограничением дальности пропадают только листья, все отрезки которых дальше предела,
+    // а порядок оставшихся листьев тот же, что и без ограничения
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void distanceLimitSkipsOnlyFarLeaves(String name, GameMap map) {
+        FlatBSP bsp = map.getFlatBsp();
+        int[] stack = bsp.createTraversalStack();
+        double[] bounds = map.getWallBounds();
+        double size = Math.max(bounds[2] - bounds[0], bounds[3] - bounds[1]);
+        
+        for (int i = 0; i <= VIEW_STEPS; i++) {
+            double x = bounds[0] + (bounds[2] - bounds[0]) * i / VIEW_STEPS;
+            for (int j = 0; j <= VIEW_STEPS; j++) {
+                double y = bounds[1] + (bounds[3] - bounds[1]) * j / VIEW_STEPS;
+                for (double maxDistance : new double[] { size * 0.1, size * 0.4 }) {
+                    List<int[]> expected = visitLeaves(bsp, x, y, Double.POSITIVE_INFINITY, stack);
+                    expected.removeIf(leaf -> !hasSegmentWithin(bsp, leaf, x, y, maxDistance));
+                    
+                    List<int[]> visited = visitLeaves(bsp, x, y, maxDistance, stack);
+                    visited.removeIf(leaf -> !hasSegmentWithin(bsp, leaf, x, y, maxDistance));
+                    
+                    assertEquals(firstSegments(expected), firstSegments(visited),
+                                 "leaves within " + maxDistance + " of (" + x + ", " + y + ")");
+                }
+            }
+        }
+    }
+    
+    // Листья в порядке обхода: первый отрезок и число отрезков
+    private static List<int[]> visitLeaves(FlatBSP bsp, double x, double y, double maxDistance, int[] stack) {
+        List<int[]> leaves = new ArrayList<>();
+        bsp.traverseFrontToBack(x, y, maxDistance, stack, (firstSegment, segmentCount) -> {
+            leaves.add(new int[] { firstSegment, segmentCount });
+            return true;
+        });
+        return leaves;
+    }
+    
+    private static boolean hasSegmentWithin(FlatBSP bsp, int[] leaf, double x, double y, double maxDistance) {
+        double[] coords = bsp.getSegmentCoords();
+        for (int i = leaf[0], end = leaf[0] + leaf[1]; i < end; i++) {
+            int base = i * 4;
+            double distanceSq = Line2D.distanceSquaredToSegment(x, y, coords[base], coords[base + 1],
+                                                                coords[base + 2], coords[base + 3]);
+            if (distanceSq <= maxDistance * maxDistance) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static List<Integer> firstSegments(List<int[]> leaves) {
+        List<Integer> result = new ArrayList<>();
+        for (int[] leaf : leaves) {
+            result.add(leaf[0]);
+        }
+        return result;
+    }
+}
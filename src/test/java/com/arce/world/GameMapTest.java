@@ -0,0 +1,56 @@
+package com.arce.world;
+
+import com.arce.math.Vector2D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameMapTest {
+    
+    // Комнаты сложной карты делят стену x=150 с порталом: каждая точка - ровно в своей комнате
+    @Test
+    void complexTestMapRoomsShareOnlyTheirEdge() {
+        GameMap map = GameMap.createComplexTestMap();
+        Sector room1 = map.getSectors().get(0);
+        Sector room2 = map.getSectors().get(1);
+        
+        assertSame(room1, map.findSector(75, 50));
+        assertSame(room2, map.findSector(225, 50));
+        assertSame(room1, map.findSector(149, 50));
+        assertSame(room2, map.findSector(151, 50));
+        
+        assertNull(map.findSector(-10, 50));
+        assertNull(map.findSector(310, 50));
+        assertNull(map.findSector(225, -10));
+        assertNull(map.findSector(225, 110));
+        
+        assertFalse(room1.containsPoint(225, 50));
+        assertFalse(room2.containsPoint(75, 50));
+    }
+    
+    // Общая стена направлена по обходу только одного из секторов - результат не должен от этого зависеть
+    @Test
+    void containsPointIgnoresWallDirection() {
+        Sector forward = new Sector(1);
+        Sector mixed = new Sector(2);
+        Vector2D[] corners = {
+            new Vector2D(0, 0), new Vector2D(100, 0), new Vector2D(100, 100), new Vector2D(0, 100)
+        };
+        for (int i = 0; i < corners.length; i++) {
+            Vector2D a = corners[i];
+            Vector2D b = corners[(i + 1) % corners.length];
+            forward.addWall(new Wall(a, b));
+            mixed.addWall(i == 1 ? new Wall(b, a) : new Wall(a, b));
+        }
+        
+        for (Sector sector : new Sector[] { forward, mixed }) {
+            assertTrue(sector.containsPoint(50, 50));
+            assertFalse(sector.containsPoint(150, 50));
+            assertFalse(sector.containsPoint(-50, 50));
+            assertFalse(sector.containsPoint(50, 150));
+        }
+    }
+}
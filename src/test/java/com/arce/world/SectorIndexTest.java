@@ -0,0 +1,57 @@
+package com.arce.world;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SectorIndexTest {
+    private static final int GRID_STEPS = 200;
+    
+    static Stream<Arguments> maps() {
+        return TestMaps.all();
+    }
+    
+    // Сетка с запасом за границами карты: индекс должен совпадать с полным перебором
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void findMatchesBruteForceOnGrid(String name, GameMap map) {
+        double[] bounds = map.getWallBounds();
+        double marginX = (bounds[2] - bounds[0]) * 0.1 + 1;
+        double marginY = (bounds[3] - bounds[1]) * 0.1 + 1;
+        double width = bounds[2] - bounds[0] + 2 * marginX;
+        double height = bounds[3] - bounds[1] + 2 * marginY;
+        
+        for (int i = 0; i <= GRID_STEPS; i++) {
+            double x = bounds[0] - marginX + width * i / GRID_STEPS;
+            for (int j = 0; j <= GRID_STEPS; j++) {
+                double y = bounds[1] - marginY + height * j / GRID_STEPS;
+                assertFindMatches(map, x, y);
+            }
+        }
+    }
+    
+    // Точки прямо на стенах и в вершинах - граничные случаи проверки принадлежности
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void findMatchesBruteForceOnWalls(String name, GameMap map) {
+        for (Wall wall : map.getWalls()) {
+            double startX = wall.getLine().start.x;
+            double startY = wall.getLine().start.y;
+            double endX = wall.getLine().end.x;
+            double endY = wall.getLine().end.y;
+            for (int step = 0; step <= 4; step++) {
+                double t = step / 4.0;
+                assertFindMatches(map, startX + (endX - startX) * t, startY + (endY - startY) * t);
+            }
+        }
+    }
+    
+    private static void assertFindMatches(GameMap map, double x, double y) {
+        assertSame(map.findSectorBruteForce(x, y), map.findSector(x, y),
+                   () -> "findSector(" + x + ", " + y + ")");
+    }
+}
\ No newline at end of file
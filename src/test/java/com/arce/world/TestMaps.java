@@ -0,0 +1,39 @@
+package com.arce.world;
+
+import com.arce.MapDemo;
+import com.arce.core.managers.MapManager;
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Карты для тестов: все файлы из maps/ (тесты запускаются из корня репозитория)
+ * и встроенные карты. Аргументы - имя карты и сама карта.
+ */
+final class TestMaps {
+    private TestMaps() {
+    }
+    
+    static Stream<Arguments> all() {
+        List<Arguments> maps = new ArrayList<>();
+        
+        MapManager mapManager = new MapManager();
+        for (String mapName : mapManager.getAvailableMaps()) {
+            if (mapManager.loadMap(mapName)) {
+                maps.add(Arguments.of(mapName, mapManager.getCurrentMap()));
+            }
+        }
+        maps.addAll(builtIn().toList());
+        return maps.stream();
+    }
+    
+    static Stream<Arguments> builtIn() {
+        return Stream.of(
+            Arguments.of("test", GameMap.createTestMap()),
+            Arguments.of("complex", GameMap.createComplexTestMap()),
+            Arguments.of("example", MapDemo.createExampleMap())
+        );
+    }
+}
\ No newline at end of file